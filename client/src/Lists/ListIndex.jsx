@@ -51,6 +51,25 @@ const ListIndex = (props) => {
     const navigate = useNavigate();
     const { showFlash } = useFlash();
 
+    /**
+     * Loads all pages of the user's lists from the backend.
+     *
+     * The backend returns lists in pages ({ items, next });
+     * the "next" cursor is sent back as "after" until no page is left.
+     * A plain array (mock API) is returned as is.
+     */
+    const loadAllListPages = async () => {
+        const lists = [];
+        let after = null;
+        do {
+            const page = await apiGet(after ? `/list?after=${encodeURIComponent(after)}` : "/list");
+            if (Array.isArray(page)) return page;
+            lists.push(...(page?.items ?? []));
+            after = page?.next ?? null;
+        } while (after);
+        return lists;
+    }
+
     /**
      * Loads lists depending on authentication state.
      *
@@ -60,7 +79,7 @@ const ListIndex = (props) => {
     const loadLists = () => {
         if (session.status === "authenticated") {
             console.log("🟡 Fetching lists...");
-            apiGet("/list")
+            loadAllListPages()
                 .then((data) => {
                     console.log("🟢 Data loaded:", data);
                     setListState(data);
@@ -232,11 +232,9 @@ const ItemForm = ({ show, onClose, id, items, setItems, onSaved, listId, imageId
           // Update item
           await apiPut(`/list/${listId}/items/${id}`, payload);
 
-          // Upload image if selected
+          // Upload image if selected (sent as the raw body)
           if (itemImageFile) {
-            const formData = new FormData();
-            formData.append("file", itemImageFile);
-            await apiPut(`/list/${listId}/items/${id}/image`, formData);
+            await apiPut(`/list/${listId}/items/${id}/image`, itemImageFile);
           }
         } else {
 
@@ -14,6 +14,17 @@ import "bootstrap/dist/css/bootstrap.min.css";
 import { Link } from "react-router-dom";
 import InputCheck from "../components/InputCheck";
 
+/**
+ * Returns the URL of a server image thumbnail of the given size.
+ * Other URLs (e.g. guest data URLs) are returned unchanged.
+ *
+ * @param {string} url Image URL of the item
+ * @param {number} size Requested size in pixels (longer side)
+ * @returns {string} URL of the thumbnail
+ */
+const thumbnailUrl = (url, size) =>
+    url.includes("/api/images/") ? `${url}${url.includes("?") ? "&" : "?"}size=${size}` : url;
+
 /**
  * ItemTable definition.
  *
@@ -76,7 +87,10 @@ const ItemTable = ({ label, items, onEdit, onDelete, purchased }) => {
                                 {/* Optional item image preview */}
                                 {item.imageUrl && (
                                     <img
-                                        src={item.imageUrl}
+                                        src={thumbnailUrl(item.imageUrl, 64)}
+                                        srcSet={item.imageUrl.includes("/api/images/")
+                                            ? `${thumbnailUrl(item.imageUrl, 64)} 1x, ${thumbnailUrl(item.imageUrl, 256)} 2x`
+                                            : undefined}
                                         alt={item.name}
                                         className="img-thumbnail ms-2"
                                         style={{ width: "50px", height: "50px", objectFit: "cover" }}
@@ -177,33 +177,41 @@ export async function apiPost(endpoint, data) {
 /**
  * Performs HTTP PUT request.
  *
- * Supports both JSON payloads and FormData.
+ * Supports JSON payloads, FormData and files (Blob).
  *
  * @param {string} endpoint Relative API endpoint
- * @param {Object|FormData} data Payload to be sent
+ * @param {Object|FormData|Blob} data Payload to be sent
  * @returns {Promise<Object|null>}
  *
  * Note:
- * FormData is typically used for file uploads
- * and must NOT have Content-Type set manually.
+ * FormData must NOT have Content-Type set manually.
+ * A file is sent as the raw body with its own type
+ * (the server streams it without multipart parsing).
  */
 export async function apiPut(endpoint, data) {
   const isFormData = data instanceof FormData;
+  const isFile = data instanceof Blob;
   console.log(
     "➡️ FETCH PUT:",
     `${API_URL}${endpoint}`,
-    isFormData ? "(FormData)" : data,
+    isFormData ? "(FormData)" : isFile ? "(File)" : data,
   );
 
+  let headers = { "Content-Type": "application/json" };
+  if (isFormData) {
+    headers = undefined;
+  } else if (isFile) {
+    headers = { "Content-Type": data.type || "application/octet-stream" };
+    if (data.name) headers["X-File-Name"] = encodeURIComponent(data.name);
+  }
+
   return globalLoading.wrap(
     async () => {
       const response = await fetch(`${API_URL}${endpoint}`, {
         method: "PUT",
-        headers: isFormData
-          ? undefined
-          : { "Content-Type": "application/json" },
+        headers,
         credentials: "include",
-        body: isFormData ? data : JSON.stringify(data),
+        body: isFormData || isFile ? data : JSON.stringify(data),
       });
       if (!response.ok) {
         throw new HttpRequestError(
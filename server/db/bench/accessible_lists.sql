@@ -0,0 +1,136 @@
+-- Benchmark of the list overview query strategies (GET /api/list).
+--
+-- Compares the "exists" strategy (single scan of lists with an exists subquery
+-- for shared access) with the "union" strategy (owned lists UNION ALL lists
+-- reached through shared_lists, each branch limited to one page).
+--
+-- The script works in its own schema "bench", so it never touches application data.
+-- The generated data set is deterministic (fixed random seed), so runs are repeatable.
+--
+-- Usage:
+--   psql -d ShoppingList -f db/bench/accessible_lists.sql
+--
+-- Data set: 20 000 users, 400 000 lists, 200 000 share rows, 4 000 000 items.
+-- User 1 is a "power user" owning 2 000 lists with 3 000 more lists shared with them,
+-- all spread over the whole ID range.
+
+\timing on
+\set ON_ERROR_STOP on
+
+drop schema if exists bench cascade;
+create schema bench;
+set search_path = bench;
+
+create table users (id bigint primary key, username varchar(255) not null unique, password varchar(255) not null);
+create table lists (id bigint primary key, name varchar(255), owner_id bigint references users (id));
+create table items (id bigint primary key, name varchar(255), count real not null, purchased boolean not null,
+                    list_id bigint not null references lists (id));
+create table shared_lists (id bigint primary key, list_id bigint references lists (id), user_id bigint references users (id),
+                           unique (list_id, user_id));
+
+select setseed(0.42);
+
+insert into users (id, username, password)
+select g, 'user' || g || '@bench.local', 'x' from generate_series(1, 20000) g;
+
+-- Every 200th list belongs to the power user, the rest is spread over other users.
+insert into lists (id, name, owner_id)
+select g, 'List ' || g, case when g % 200 = 0 then 1 else 2 + (g % 19998) end
+from generate_series(1, 400000) g;
+
+-- 3000 lists of other users are shared with the power user, the rest randomly.
+insert into shared_lists (id, list_id, user_id)
+select g, g * 130 + 7, 1 from generate_series(1, 3000) g;
+insert into shared_lists (id, list_id, user_id)
+select 3000 + g, 1 + floor(random() * 400000)::bigint, 2 + floor(random() * 19998)::bigint
+from generate_series(1, 197000) g
+on conflict do nothing;
+
+insert into items (id, name, count, purchased, list_id)
+select g, 'Item ' || g, 1, random() < 0.3, 1 + (g % 400000)
+from generate_series(1, 4000000) g;
+
+create index items_list_id on items (list_id);
+
+vacuum analyze;
+
+-- ---------------------------------------------------------------------------
+-- 1) Baseline without the supporting indexes.
+-- ---------------------------------------------------------------------------
+
+\echo '=== exists strategy, no supporting indexes ==='
+explain (analyze, buffers)
+select l.id, l.name, l.owner_id, count(i.id), sum(case when i.purchased then 1 else 0 end)
+from lists l
+left join items i on i.list_id = l.id
+where l.id > 0
+  and (l.owner_id = 1 or exists (select 1 from shared_lists s where s.list_id = l.id and s.user_id = 1))
+group by l.id, l.name, l.owner_id
+order by l.id
+limit 51;
+
+-- ---------------------------------------------------------------------------
+-- 2) Supporting indexes created by the application (see ListEntity, SharedListEntity).
+-- ---------------------------------------------------------------------------
+
+create index idx_lists_owner_id on lists (owner_id, id);
+create index idx_shared_lists_user_list on shared_lists (user_id, list_id);
+analyze;
+
+\echo '=== exists strategy, with indexes ==='
+explain (analyze, buffers)
+select l.id, l.name, l.owner_id, count(i.id), sum(case when i.purchased then 1 else 0 end)
+from lists l
+left join items i on i.list_id = l.id
+where l.id > 0
+  and (l.owner_id = 1 or exists (select 1 from shared_lists s where s.list_id = l.id and s.user_id = 1))
+group by l.id, l.name, l.owner_id
+order by l.id
+limit 51;
+
+\echo '=== union strategy, with indexes ==='
+explain (analyze, buffers)
+select l.id, l.name, l.owner_id, count(i.id), count(i.id) filter (where i.purchased)
+from (
+    (select o.id from lists o where o.owner_id = 1 and o.id > 0 order by o.id limit 51)
+    union all
+    (select s.list_id from shared_lists s join lists sl on sl.id = s.list_id
+     where s.user_id = 1 and s.list_id > 0 and sl.owner_id is distinct from 1
+     order by s.list_id limit 51)
+) accessible
+join lists l on l.id = accessible.id
+left join items i on i.list_id = l.id
+group by l.id, l.name, l.owner_id
+order by l.id
+limit 51;
+
+-- A page deep inside the power user's lists (keyset continues after list 250 000).
+\echo '=== exists strategy, deep page ==='
+explain (analyze, buffers)
+select l.id, l.name, l.owner_id, count(i.id), sum(case when i.purchased then 1 else 0 end)
+from lists l
+left join items i on i.list_id = l.id
+where l.id > 250000
+  and (l.owner_id = 1 or exists (select 1 from shared_lists s where s.list_id = l.id and s.user_id = 1))
+group by l.id, l.name, l.owner_id
+order by l.id
+limit 51;
+
+\echo '=== union strategy, deep page ==='
+explain (analyze, buffers)
+select l.id, l.name, l.owner_id, count(i.id), count(i.id) filter (where i.purchased)
+from (
+    (select o.id from lists o where o.owner_id = 1 and o.id > 250000 order by o.id limit 51)
+    union all
+    (select s.list_id from shared_lists s join lists sl on sl.id = s.list_id
+     where s.user_id = 1 and s.list_id > 250000 and sl.owner_id is distinct from 1
+     order by s.list_id limit 51)
+) accessible
+join lists l on l.id = accessible.id
+left join items i on i.list_id = l.id
+group by l.id, l.name, l.owner_id
+order by l.id
+limit 51;
+
+reset search_path;
+-- Remove the generated data with: drop schema bench cascade;
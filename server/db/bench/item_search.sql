@@ -0,0 +1,178 @@
+-- Benchmark of the cross-list item search (GET /api/items/search).
+--
+-- Runs the query of ItemsRepository.searchAccessibleItems on one million items,
+-- first without and then with the trigram GIN index, and reports latency percentiles
+-- of 2 000 searches with random users and search terms (including typos and text without diacritics).
+-- Target: p99 under 20 ms with the index.
+--
+-- The script works in its own schema "bench_search", so it never touches application data.
+-- The generated data set is deterministic (fixed random seed), so runs are repeatable.
+-- The pg_trgm extension must be available (the script creates it if missing).
+--
+-- Usage:
+--   psql -d ShoppingList -f db/bench/item_search.sql
+--
+-- Data set: 20 000 users, 100 000 lists, 50 000 share rows, 1 000 000 items.
+-- User 1 is a "power user" owning 1 000 lists (10 000 items) with 1 000 more lists shared with them.
+
+\timing on
+\set ON_ERROR_STOP on
+
+create extension if not exists pg_trgm;
+
+drop schema if exists bench_search cascade;
+create schema bench_search;
+set search_path = bench_search, public;
+
+create table users (id bigint primary key, email varchar(255) not null unique);
+create table lists (id bigint primary key, name varchar(255), owner_id bigint references users (id));
+create table items (id bigint primary key, name varchar(255), count real not null, purchased boolean not null,
+                    list_id bigint not null references lists (id));
+create table shared_lists (id bigint primary key, list_id bigint references lists (id), user_id bigint references users (id),
+                           unique (list_id, user_id));
+
+-- Product names and variants used to generate item names such as "Mléko polotučné 2".
+create table words (nr int primary key, word text not null);
+insert into words
+select row_number() over (), w
+from unnest(array[
+    'Mléko', 'Chléb', 'Rohlíky', 'Máslo', 'Vejce', 'Sýr', 'Šunka', 'Jogurt', 'Tvaroh', 'Smetana',
+    'Kafe', 'Čaj', 'Cukr', 'Mouka', 'Sůl', 'Pepř', 'Rýže', 'Těstoviny', 'Brambory', 'Cibule',
+    'Česnek', 'Mrkev', 'Rajčata', 'Okurka', 'Paprika', 'Jablka', 'Banány', 'Pomeranče', 'Citrony', 'Hrušky',
+    'Kuřecí prsa', 'Vepřové maso', 'Hovězí maso', 'Párky', 'Salám', 'Ryba', 'Tuňák', 'Olej', 'Ocet', 'Kečup',
+    'Hořčice', 'Majonéza', 'Pivo', 'Víno', 'Minerálka', 'Džus', 'Limonáda', 'Čokoláda', 'Sušenky', 'Chipsy',
+    'Toaletní papír', 'Mýdlo', 'Šampon', 'Zubní pasta', 'Prací prášek', 'Jar', 'Houbičky', 'Alobal', 'Pečicí papír', 'Baterie'
+]) w;
+create table variants (nr int primary key, variant text not null);
+insert into variants
+select row_number() over (), v
+from unnest(array['', '', '', ' bio', ' light', ' polotučné', ' velké', ' malé', ' 2 ks', ' 1 kg', ' celozrnné', ' akce']) v;
+
+select setseed(0.42);
+
+insert into users (id, email)
+select g, 'user' || g || '@bench.local' from generate_series(1, 20000) g;
+
+-- Every 100th list belongs to the power user, the rest is spread over other users.
+insert into lists (id, name, owner_id)
+select g, 'List ' || g, case when g % 100 = 0 then 1 else 2 + (g % 19998) end
+from generate_series(1, 100000) g;
+
+-- 1000 lists of other users are shared with the power user, the rest randomly.
+insert into shared_lists (id, list_id, user_id)
+select g, g * 97 + 3, 1 from generate_series(1, 1000) g;
+insert into shared_lists (id, list_id, user_id)
+select 1000 + g, 1 + floor(random() * 100000)::bigint, 2 + floor(random() * 19998)::bigint
+from generate_series(1, 49000) g
+on conflict do nothing;
+
+insert into items (id, name, count, purchased, list_id)
+select g.id, w.word || v.variant, 1, random() < 0.3, 1 + (g.id % 100000)
+from (select id, 1 + floor(random() * 60)::int as w_nr, 1 + floor(random() * 12)::int as v_nr
+      from generate_series(1, 1000000) id) g
+join words w on w.nr = g.w_nr
+join variants v on v.nr = g.v_nr;
+
+-- Indexes created by the application (ListEntity, SharedListEntity, ItemsEntity).
+create index idx_lists_owner_id on lists (owner_id, id);
+create index idx_shared_lists_user_list on shared_lists (user_id, list_id);
+create index idx_items_list_version on items (list_id);
+
+vacuum analyze;
+
+-- Search terms: exact words, parts of words, words without diacritics and with typos.
+create table terms (nr int primary key, term text not null);
+insert into terms
+select row_number() over (), t
+from unnest(array[
+    'mléko', 'chleb', 'kafe', 'kave', 'máslo', 'sýr', 'syr', 'jogurt', 'rajcata', 'bio',
+    'čokoláda', 'cokolada', 'prací', 'papír', 'pivo', 'banány', 'bananz', 'kuřecí', 'šunka', 'sunka',
+    'olej', 'mouka', 'rýže', 'těstov', 'polotučné', 'minerálka', 'mineralka', 'pasta', 'zubni', 'baterie'
+]) t;
+
+-- Query of ItemsRepository.searchAccessibleItems (first page of 20 results + 1).
+prepare search (bigint, text, text) as
+select i.id as "id", i.name as "name", i.count as "count", i.purchased as "purchased",
+       l.id as "listId", l.name as "listName"
+from items i
+join lists l on l.id = i.list_id
+where i.list_id in (
+        select o.id from lists o where o.owner_id = $1
+        union all
+        select s.list_id from shared_lists s where s.user_id = $1)
+  and (i.name ilike $3 or $2 <% i.name)
+order by word_similarity($2, i.name) desc, i.id
+limit 21 offset 0;
+
+-- Runs 2 000 searches and stores the latency of each one; every 10th search is made by the power user.
+create table timings (run text, kind text, ms double precision);
+create procedure measure(run text) language plpgsql as $$
+declare
+    started timestamptz;
+    user_id bigint;
+    term text;
+begin
+    perform setseed(0.7);
+    for nr in 1..2000 loop
+        user_id := case when nr % 10 = 0 then 1 else 2 + floor(random() * 19998)::bigint end;
+        select t.term into term from terms t where t.nr = 1 + floor(random() * 30)::int;
+        started := clock_timestamp();
+        execute format('execute search(%s, %L, %L)', user_id, term, '%' || term || '%');
+        insert into timings
+        values (run, case when user_id = 1 then 'power user' else 'regular user' end,
+                extract(epoch from clock_timestamp() - started) * 1000);
+    end loop;
+end $$;
+
+-- ---------------------------------------------------------------------------
+-- 1) Baseline without the trigram index.
+-- ---------------------------------------------------------------------------
+
+\echo '=== power user, no trigram index ==='
+explain (analyze, buffers) execute search(1, 'kafe', '%kafe%');
+
+call measure('no trigram index');
+
+-- ---------------------------------------------------------------------------
+-- 2) Trigram index created by the application (ItemSearchIndexInitializer).
+-- ---------------------------------------------------------------------------
+
+create index idx_items_name_trgm on items using gin (name gin_trgm_ops);
+analyze items;
+deallocate search;
+prepare search (bigint, text, text) as
+select i.id as "id", i.name as "name", i.count as "count", i.purchased as "purchased",
+       l.id as "listId", l.name as "listName"
+from items i
+join lists l on l.id = i.list_id
+where i.list_id in (
+        select o.id from lists o where o.owner_id = $1
+        union all
+        select s.list_id from shared_lists s where s.user_id = $1)
+  and (i.name ilike $3 or $2 <% i.name)
+order by word_similarity($2, i.name) desc, i.id
+limit 21 offset 0;
+
+\echo '=== power user, with trigram index ==='
+explain (analyze, buffers) execute search(1, 'kafe', '%kafe%');
+\echo '=== regular user, with trigram index ==='
+explain (analyze, buffers) execute search(4242, 'kafe', '%kafe%');
+
+call measure('with trigram index');
+
+-- ---------------------------------------------------------------------------
+-- 3) Latency percentiles (milliseconds).
+-- ---------------------------------------------------------------------------
+
+\echo '=== latency percentiles ==='
+select run, kind, count(*) as searches,
+       round(avg(ms)::numeric, 2) as avg_ms,
+       round(percentile_cont(0.50) within group (order by ms)::numeric, 2) as p50_ms,
+       round(percentile_cont(0.99) within group (order by ms)::numeric, 2) as p99_ms,
+       round(max(ms)::numeric, 2) as max_ms
+from timings
+group by run, kind
+order by run, kind;
+
+reset search_path;
+-- Remove the generated data with: drop schema bench_search cascade;
@@ -0,0 +1,24 @@
+-- Fills the denormalized item counters (items_count, purchased_count) of lists
+-- that were created before the counters existed.
+--
+-- The application keeps the counters up to date with every item change, so this is
+-- needed only once. Lists whose counters are already correct are not written; the
+-- change version of repaired lists is incremented, because the counters are part of
+-- the list payload.
+-- Run once, while the application is stopped:
+--   psql -d ShoppingList -f db/migration/item_counters_backfill.sql
+
+update lists l
+set items_count = c.items_count,
+    purchased_count = c.purchased_count,
+    change_version = l.change_version + 1
+from (
+    select ll.id,
+           count(i.id) as items_count,
+           count(i.id) filter (where i.purchased) as purchased_count
+    from lists ll
+    left join items i on i.list_id = ll.id
+    group by ll.id
+) c
+where c.id = l.id
+  and (l.items_count <> c.items_count or l.purchased_count <> c.purchased_count);
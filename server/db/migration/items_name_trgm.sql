@@ -0,0 +1,8 @@
+-- Trigram index for the item search (GET /api/items/search).
+--
+-- The application creates the same index on startup (ItemSearchIndexInitializer).
+-- Run this script manually only if the application user may not create extensions:
+--   psql -d ShoppingList -f db/migration/items_name_trgm.sql
+
+create extension if not exists pg_trgm;
+create index concurrently if not exists idx_items_name_trgm on items using gin (name gin_trgm_ops);
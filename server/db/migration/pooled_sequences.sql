@@ -0,0 +1,15 @@
+-- Switches the ID sequences to the pooled allocation used by the entities (allocationSize = 50).
+--
+-- Hibernate reserves a block of 50 IDs per nextval call, so the sequence must advance by 50.
+-- Until this script is applied, the application detects the old "increment by 1"
+-- (hibernate.id.sequence.increment_size_mismatch_strategy: fix) and keeps allocating one ID per call.
+--
+-- The next value of each sequence becomes the upper bound of the first pooled block,
+-- so IDs that are already in use are never handed out again.
+-- Run once, while the application is stopped:
+--   psql -d ShoppingList -f db/migration/pooled_sequences.sql
+
+alter sequence lists_seq increment by 50;
+alter sequence items_seq increment by 50;
+alter sequence images_seq increment by 50;
+alter sequence users_seq increment by 50;
@@ -2,13 +2,16 @@ package michal;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main entry point of the Spring Boot application.
  * <p>
  * Starts the application context and initializes all Spring components.
+ * Scheduling is enabled for periodic maintenance jobs.
  */
 @SpringBootApplication
+@EnableScheduling
 public class Application {
 
     public static void main(String[] args) {
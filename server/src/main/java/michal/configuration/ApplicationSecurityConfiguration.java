@@ -102,7 +102,7 @@ public class ApplicationSecurityConfiguration {
                 "https://*.netlify.app"));
 
         // Allow common HTTP methods
-        configuration.setAllowedMethods(List.of("HEAD", "GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(List.of("HEAD", "GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
 
         // Allow all headers (like Authorization, Content-Type, etc.)
         configuration.setAllowedHeaders(List.of("*"));
@@ -0,0 +1,36 @@
+package michal.configuration;
+
+import michal.controller.ListEditWebSocketHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * This class registers the WebSocket endpoints of the application.
+ * <p>
+ * The handshake is a normal HTTP request under {@code /api/list/**}, so it is authenticated
+ * by the security filter chain (session cookie) before the connection is upgraded.
+ * Allowed origins are the same as in the CORS configuration.
+ */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfiguration implements WebSocketConfigurer {
+
+    @Autowired
+    private ListEditWebSocketHandler listEditWebSocketHandler;
+
+    /**
+     * Registers the collaborative editing endpoint of lists.
+     *
+     * @param registry registry of WebSocket handlers
+     */
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(listEditWebSocketHandler, ListEditWebSocketHandler.PATH)
+                .setAllowedOriginPatterns("http://localhost:5173",
+                        "https://sholist.netlify.app",
+                        "https://*.netlify.app");
+    }
+}
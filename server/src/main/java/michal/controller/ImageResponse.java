@@ -0,0 +1,160 @@
+package michal.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import michal.dto.ImageFileDTO;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Helper that sends image files with caching, conditional and range support.
+ * <p>
+ * Stored files never change (their name is derived from the content or a new UUID),
+ * so the stored name is a strong ETag and responses are cached as {@code immutable}.
+ * Only a requested thumbnail that is not generated yet is sent as the original with
+ * {@code no-cache}, so the browser picks up the thumbnail later.
+ * <p>
+ * On Tomcat, larger files are handed over to the connector with sendfile: the kernel
+ * copies the bytes from the file to the socket without passing them through the JVM.
+ * Elsewhere the file is written by Spring, which handles {@code Range} requests itself.
+ */
+final class ImageResponse {
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable();
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    // Request attributes of Tomcat's sendfile support (see org.apache.tomcat.util.net.SendfileState).
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /** Smaller files are cheaper to copy than to hand over (same threshold as Tomcat's default servlet). */
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private ImageResponse() {
+    }
+
+    /**
+     * Returns {@code 304 Not Modified} if the client already has the file, otherwise the file
+     * or the requested part of it.
+     *
+     * @param image resolved image file
+     * @param request current servlet request (range headers, sendfile support)
+     * @param webRequest current request (conditional check)
+     * @return response with status 200, 206, 304 or 416
+     */
+    static ResponseEntity<Resource> respond(ImageFileDTO image, HttpServletRequest request, WebRequest webRequest) {
+        String etag = "\"" + image.getStoredName() + "\"";
+        CacheControl cacheControl = image.isImmutable() ? IMMUTABLE : REVALIDATE;
+        // The check also writes the ETag header of every response below.
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+
+        Resource resource = image.getResource();
+        MediaType contentType = MediaType.valueOf(image.getContentType());
+        String range = request.getHeader(HttpHeaders.RANGE);
+        // A range of an older representation (If-Range with another ETag) must not be applied.
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        boolean partial = range != null && (ifRange == null || ifRange.equals(etag));
+        File file = sendfileTarget(resource, image.getSize(), request);
+
+        if (file == null) {
+            if (range != null && !partial) {
+                // Spring would apply the Range header to a file resource, so the file is sent as a plain stream.
+                return withLength(ResponseEntity.ok(), image.getSize())
+                        .cacheControl(cacheControl).contentType(contentType)
+                        .body(new InputStreamResource(open(resource)));
+            }
+            // Spring answers Range requests of a Resource body with 206 itself.
+            ResponseEntity.BodyBuilder response = range == null
+                    ? withLength(ResponseEntity.ok(), image.getSize())
+                    : ResponseEntity.ok();
+            return response.cacheControl(cacheControl).contentType(contentType).body(resource);
+        }
+
+        // A known length (from the cached metadata) saves a look at the file system.
+        long length = image.getSize() != null ? image.getSize() : file.length();
+        if (!partial) {
+            return sendfile(request, file, 0, length, ResponseEntity.ok())
+                    .cacheControl(cacheControl).contentType(contentType).build();
+        }
+
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(range);
+            if (ranges.size() != 1) {
+                // Several ranges are sent as multipart/byteranges by Spring.
+                return ResponseEntity.ok().cacheControl(cacheControl).contentType(contentType).body(resource);
+            }
+            ResourceRegion region = ranges.get(0).toResourceRegion(resource);
+            long start = region.getPosition();
+            long end = start + region.getCount();
+            return sendfile(request, file, start, end, ResponseEntity.status(HttpStatus.PARTIAL_CONTENT))
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length)
+                    .cacheControl(cacheControl).contentType(contentType).build();
+        } catch (IllegalArgumentException e) {
+            // Malformed or unsatisfiable range.
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length).build();
+        }
+    }
+
+    /**
+     * Returns the file to hand over to the connector, or null when the file is written by Spring.
+     */
+    private static File sendfileTarget(Resource resource, Long size, HttpServletRequest request) {
+        if (!Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))
+                || HttpMethod.HEAD.matches(request.getMethod())
+                || !resource.isFile()) {
+            return null;
+        }
+        try {
+            File file = resource.getFile();
+            return (size != null ? size : file.length()) >= SENDFILE_MIN_SIZE ? file : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Lets the connector send bytes {@code [start, end)} of the file after the headers; the body stays empty.
+     */
+    private static ResponseEntity.BodyBuilder sendfile(HttpServletRequest request, File file, long start, long end,
+                                                       ResponseEntity.BodyBuilder response) {
+        request.setAttribute(SENDFILE_FILENAME, file.getAbsolutePath());
+        request.setAttribute(SENDFILE_START, start);
+        request.setAttribute(SENDFILE_END, end);
+        return response.header(HttpHeaders.ACCEPT_RANGES, "bytes").contentLength(end - start);
+    }
+
+    /**
+     * Sets the Content-Length of a whole file when it is known, so Spring does not have to ask the file for it.
+     */
+    private static ResponseEntity.BodyBuilder withLength(ResponseEntity.BodyBuilder response, Long size) {
+        return size != null ? response.contentLength(size) : response;
+    }
+
+    private static InputStream open(Resource resource) {
+        try {
+            return resource.getInputStream();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package michal.controller;
+
+import michal.dto.CursorPageDTO;
+import michal.dto.ItemSearchResultDTO;
+import michal.entity.UserEntity;
+import michal.service.ItemSuggestionService;
+import michal.service.ItemsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * This controller handles searching items across all lists of the current user.
+ * <p>
+ * It answers questions like "which of my lists has coffee on it".
+ * Both owned lists and lists shared with the user are searched.
+ * It also suggests item names while the user types a new item.
+ */
+@RestController
+@RequestMapping("/api/items")
+public class ItemSearchController {
+
+    // The service that contains business logic for managing items
+    @Autowired
+    private ItemsService itemsService;
+
+    // The service that suggests item names from the user's history
+    @Autowired
+    private ItemSuggestionService itemSuggestionService;
+
+    /**
+     * Search items by name in all lists the current user can access.
+     * Example request: GET /api/items/search?q=kafe
+     * <p>
+     * Results are ranked by similarity of the item name to the searched text (best match first)
+     * and paginated: the response contains a {@code next} cursor which is sent back as {@code after}
+     * to load the following page.
+     *
+     * @param q     searched text (at least 3 characters)
+     * @param after cursor of the requested page (omit for the first page)
+     * @param size  number of items per page (omit for the default size)
+     * @param user  currently authenticated user
+     * @return a page of found items with the lists they belong to
+     */
+    @GetMapping("/search")
+    public CursorPageDTO<ItemSearchResultDTO> searchItems(@RequestParam String q,
+                                                          @RequestParam(required = false) String after,
+                                                          @RequestParam(required = false) Integer size,
+                                                          @AuthenticationPrincipal UserEntity user) {
+        return itemsService.searchItems(q, after, size, user);
+    }
+
+    /**
+     * Suggest item names starting with the typed text (autocomplete).
+     * Example request: GET /api/items/suggest?prefix=ml
+     * <p>
+     * Names the user has used more often come first. Case and diacritics are ignored,
+     * so "ml" suggests "Mléko". Suggestions are served from memory.
+     *
+     * @param prefix typed text (omit to get the most used names)
+     * @param limit  maximum number of suggestions (omit for the default)
+     * @param user   currently authenticated user
+     * @return suggested item names
+     */
+    @GetMapping("/suggest")
+    public List<String> suggestItemNames(@RequestParam(required = false) String prefix,
+                                         @RequestParam(required = false) Integer limit,
+                                         @AuthenticationPrincipal UserEntity user) {
+        return itemSuggestionService.suggest(prefix, limit, user);
+    }
+}
@@ -1,13 +1,27 @@
 package michal.controller;
 
 
+import michal.dto.ItemBatchOperationDTO;
+import michal.dto.ItemBatchResultDTO;
+import michal.dto.ItemMoveDTO;
+import michal.dto.ItemPatchDTO;
 import michal.dto.ItemsDTO;
+import michal.dto.ItemsDeltaDTO;
 import michal.entity.UserEntity;
+import michal.entity.enumy.ItemBatchStatus;
 import michal.service.ItemsService;
+import michal.service.ListEditService;
+import michal.service.ListService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -26,6 +40,14 @@ public class ItemsController {
     @Autowired
     private ItemsService itemsService;
 
+    // Provides the change version of the list for conditional requests
+    @Autowired
+    private ListService listService;
+
+    // Queues batch edits in write-behind mode and writes pending edits before reads
+    @Autowired
+    private ListEditService listEditService;
+
     /**
      * Retrieves all items belonging to a specific list.
      *
@@ -35,16 +57,53 @@ public class ItemsController {
      * or has permission to view it.
      * </p>
      *
+     * <p>
+     * The response carries an ETag based on the change version of the list.
+     * An unchanged list is answered with {@code 304 Not Modified} without loading the items.
+     * </p>
+     *
      * @param listId ID of the list whose items should be retrieved
      * @param user currently authenticated user
-     * @return list of {@link ItemsDTO} objects
+     * @param request current request (used for the conditional check)
+     * @return list of {@link ItemsDTO} objects, or 304 without body
      */
     @GetMapping("/items")
-    public List<ItemsDTO> getAllItems(@PathVariable Long listId,
-                                      @AuthenticationPrincipal UserEntity user) {
+    public ResponseEntity<List<ItemsDTO>> getAllItems(@PathVariable Long listId,
+                                                      @AuthenticationPrincipal UserEntity user,
+                                                      WebRequest request) {
+        // Pending edits of the list are written first, so the response includes them.
+        listEditService.flush(listId, user);
+        // Read the version first, so the ETag is never newer than the returned items.
+        String etag = ListETag.of("items", listId, listService.getChangeVersion(listId));
+
         // Delegates item retrieval to the service layer.
         // The service validates user access and loads items from the database.
-        return itemsService.getAllItems(listId, user);
+        return ListETag.respond(request, etag, () -> itemsService.getAllItems(listId, user));
+    }
+
+    /**
+     * Retrieves only the items changed since a list version known to the client.
+     * Example request: GET /api/list/1/items?since=42
+     *
+     * <p>
+     * The response contains the current list version, the created or changed items
+     * and the IDs of deleted items. If the delta cannot be computed (the version is too old),
+     * {@code full} is true and all items are returned.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @param since last list version the client has seen
+     * @param user currently authenticated user
+     * @return delta of the items
+     */
+    @GetMapping(value = "/items", params = "since")
+    public ItemsDeltaDTO getItemsSince(@PathVariable Long listId,
+                                       @RequestParam long since,
+                                       @AuthenticationPrincipal UserEntity user) {
+        // Pending edits of the list are written first, so the delta includes them.
+        listEditService.flush(listId, user);
+        // The service validates user access and loads only the changes.
+        return itemsService.getItemsSince(listId, since, user);
     }
 
     /**
@@ -54,12 +113,48 @@ public class ItemsController {
      *
      * @param listId   the ID of the list where the item will be added
      * @param itemsDTO the item data sent from the frontend
+     * @param user     currently authenticated user
      * @return the created item as DTO
      */
     @PostMapping("/items")
-    public ItemsDTO addItems(@PathVariable Long listId, @RequestBody ItemsDTO itemsDTO) {
+    public ItemsDTO addItems(@PathVariable Long listId, @RequestBody ItemsDTO itemsDTO,
+                             @AuthenticationPrincipal UserEntity user) {
         // Calls the service to add a new item to a list
-        return itemsService.addItems(listId, itemsDTO);
+        return itemsService.addItems(listId, itemsDTO, user);
+    }
+
+    /**
+     * Applies several item operations to a list in one request.
+     * Example request: PATCH /api/list/1/items
+     * <p>
+     * The body is a JSON array of operations, e.g.
+     * {@code [{"op":"SET_PURCHASED","id":5,"purchased":true},{"op":"DELETE","id":7}]}.
+     * Access is checked once and all operations are applied in one transaction.
+     * The response contains one result ({@code OK} or {@code NOT_FOUND}) per operation, in request order.
+     * <p>
+     * In write-behind mode ({@code app.items.edit.write-behind}) the operations are only validated,
+     * checked for access and queued; the response is {@code 202 Accepted} with {@code QUEUED} results
+     * and the written result arrives as a change event of the list.
+     *
+     * @param listId     ID of the list
+     * @param operations operations to apply
+     * @param user       currently authenticated user
+     * @return results of the operations
+     */
+    @PatchMapping("/items")
+    public ResponseEntity<List<ItemBatchResultDTO>> batchUpdate(@PathVariable Long listId,
+                                                                @RequestBody List<ItemBatchOperationDTO> operations,
+                                                                @AuthenticationPrincipal UserEntity user) {
+        if (listEditService.isWriteBehind()) {
+            // Merged with other pending edits of the list and written within a few milliseconds
+            listEditService.submit(listId, operations, user);
+            List<ItemBatchResultDTO> queued = operations.stream()
+                    .map(op -> new ItemBatchResultDTO(op.getId(), ItemBatchStatus.QUEUED))
+                    .toList();
+            return ResponseEntity.accepted().body(queued);
+        }
+        // Calls the service to apply all operations at once
+        return ResponseEntity.ok(itemsService.batchUpdate(listId, operations, user));
     }
 
     /**
@@ -81,6 +176,8 @@ public class ItemsController {
             @PathVariable Long listId,
             @AuthenticationPrincipal UserEntity user
     ) {
+        // Pending edits of the list are written first, so the response includes them.
+        listEditService.flush(listId, user);
         // Delegates item retrieval to the service layer.
         // The service validates ownership and maps the entity to DTO.
         return itemsService.getItem(id, listId, user);
@@ -118,6 +215,41 @@ public class ItemsController {
         return itemsService.updateItemImage(id, file, user);
     }
 
+    /**
+     * Updates (or replaces) an image of an item from a raw request body.
+     *
+     * <p>
+     * The body is the image itself (e.g. {@code Content-Type: image/png}), so it is not
+     * buffered as multipart: it is streamed into the storage while it is received.
+     * A {@code Content-Length} over the limit is rejected before the body is read,
+     * and the real image type is detected from the first bytes.
+     * </p>
+     *
+     * @param listId ID of the list that owns the item (used for routing)
+     * @param id ID of the item whose image should be updated
+     * @param fileName original file name (URL encoded), optional
+     * @param request HTTP request providing the body
+     * @param user currently authenticated user
+     * @return updated {@link ItemsDTO} including image metadata
+     * @throws IOException if the body cannot be read
+     */
+    @PutMapping(
+            value = "/items/{id}/image",
+            consumes = {"image/*", MediaType.APPLICATION_OCTET_STREAM_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ItemsDTO uploadItemImage(
+            @PathVariable Long listId,
+            @PathVariable Long id,
+            @RequestHeader(value = "X-File-Name", required = false) String fileName,
+            HttpServletRequest request,
+            @AuthenticationPrincipal UserEntity user
+    ) throws IOException {
+        String originalName = fileName == null ? null : URLDecoder.decode(fileName, StandardCharsets.UTF_8);
+        return itemsService.updateItemImage(id, request.getInputStream(), request.getContentLengthLong(),
+                originalName, user);
+    }
+
     /**
      * Updates an existing item with new data.
      *
@@ -143,10 +275,76 @@ public class ItemsController {
             @RequestBody ItemsDTO dto,
             @AuthenticationPrincipal UserEntity user
     ) {
+        // Pending edits must not overwrite this change later.
+        listEditService.flush(listId, user);
         // Delegates update logic to the service layer.
         // The service validates ownership and applies the changes.
         return itemsService.updateItem(id, dto, user);
     }
+
+    /**
+     * Changes selected fields of an item, e.g. ticks it as purchased.
+     * Example request: PATCH /api/list/1/items/5 with {@code {"version":3,"purchased":true}}
+     * <p>
+     * Only the fields present in the body are changed. The change is written by one
+     * conditional statement and only if the item still has the given version;
+     * otherwise the response is 409 and the client should reload the item.
+     * </p>
+     *
+     * @param listId ID of the list that owns the item
+     * @param id ID of the item to be changed
+     * @param patch changed fields and the version of the item
+     * @param user currently authenticated user
+     * @return changed {@link ItemsDTO} with its new version
+     */
+    @PatchMapping(
+            value = "/items/{id}",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ItemsDTO patchItem(
+            @PathVariable Long listId,
+            @PathVariable Long id,
+            @RequestBody ItemPatchDTO patch,
+            @AuthenticationPrincipal UserEntity user
+    ) {
+        // Pending edits are written first, so their version is checked as well.
+        listEditService.flush(listId, user);
+        // Delegates the conditional update to the service layer.
+        return itemsService.patchItem(listId, id, patch, user);
+    }
+
+    /**
+     * Moves an item to a new place in its list.
+     * Example request: PUT /api/list/1/items/5/position with {@code {"afterId":3}}
+     * <p>
+     * The item is placed right after the given item, or at the top of the list when
+     * {@code afterId} is null. Only the moved item is written in the usual case.
+     * </p>
+     *
+     * @param listId ID of the list that owns the item
+     * @param id ID of the moved item
+     * @param move new place of the item
+     * @param user currently authenticated user
+     * @return moved {@link ItemsDTO} with its new position
+     */
+    @PutMapping(
+            value = "/items/{id}/position",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ItemsDTO moveItem(
+            @PathVariable Long listId,
+            @PathVariable Long id,
+            @RequestBody ItemMoveDTO move,
+            @AuthenticationPrincipal UserEntity user
+    ) {
+        // Pending edits (e.g. a queued delete of the neighbour) are written first.
+        listEditService.flush(listId, user);
+        // Delegates the move to the service layer.
+        return itemsService.moveItem(listId, id, move.getAfterId(), user);
+    }
+
     /**
      * Deletes an existing item by its identifier.
      *
@@ -156,13 +354,16 @@ public class ItemsController {
      * who owns the item or has permission to modify the list.
      * </p>
      *
+     * @param listId ID of the list that owns the item
      * @param id ID of the item to be deleted
      * @param user currently authenticated user
      */
     @DeleteMapping("/items/{id}")
-    public void remove(@PathVariable long id, UserEntity user) {
+    public void remove(@PathVariable Long listId, @PathVariable long id, @AuthenticationPrincipal UserEntity user) {
+        // Pending edits of the item are written first (the delete then wins).
+        listEditService.flush(listId, user);
         // Delegates delete logic to the service layer.
         // The service validates ownership and performs the removal.
-        itemsService.removeItem(id, user);
+        itemsService.removeItem(listId, id, user);
     }
 }
@@ -1,16 +1,19 @@
 package michal.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import michal.dto.ImageFileDTO;
 import michal.entity.UserEntity;
 import michal.service.ImageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Creates a controller responsible for serving and deleting item images.
@@ -29,23 +32,34 @@ public class ItemsImageController {
      * so the browser can display it directly.
      * </p>
      *
+     * <p>
+     * List screens pass {@code ?size=} (e.g. 64) and get the smallest thumbnail of at least
+     * that size, or the original while the thumbnails are still being generated.
+     * </p>
+     *
+     * <p>
+     * Stored files never change, so the response carries a strong ETag and is cached as immutable.
+     * Requests with {@code If-None-Match} are answered with 304 and {@code Range} requests with 206.
+     * </p>
+     *
      * @param imageId ID of the image to load
+     * @param size requested size in pixels (longer side), optional
      * @param user currently authenticated user
-     * @return HTTP 200 response containing the image resource
+     * @param request current servlet request (range headers)
+     * @param webRequest current request (used for the conditional check)
+     * @return HTTP 200/206 response containing the image resource, or 304 without body
      */
     @GetMapping("/api/images/{imageId}")
     public ResponseEntity<Resource> getImage(@PathVariable Long imageId,
-                                             @AuthenticationPrincipal UserEntity user){
-        // Load the file as a Spring Resource (e.g., file system or other storage).
-        Resource image = imageService.loadImage(imageId, user);
-
-        // Determine the MIME type (e.g., image/jpeg, image/png) for the response header.
-        String contentType = imageService.getImageContentType(imageId, user);
-
+                                             @RequestParam(required = false) Integer size,
+                                             @AuthenticationPrincipal UserEntity user,
+                                             HttpServletRequest request,
+                                             WebRequest webRequest){
+        // One lookup resolves access, the file (or its thumbnail) and its MIME type (e.g., image/jpeg, image/png).
+        ImageFileDTO image = imageService.loadImage(imageId, size, user);
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.valueOf(contentType))
-                .body(image);
+        // Conditional, range and caching handling of the file.
+        return ImageResponse.respond(image, request, webRequest);
     }
 
     /**
@@ -1,11 +1,27 @@
 package michal.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import michal.dto.CursorPageDTO;
 import michal.dto.ListDTO;
+import michal.dto.ListSummaryDTO;
 import michal.dto.ShareRequestDTO;
+import michal.entity.UserEntity;
+import michal.service.ListEditService;
+import michal.service.ListEventService;
 import michal.service.ListService;
+import michal.service.ListStreamImportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 
@@ -25,6 +41,22 @@ public class ListController {
     @Autowired
     private ListService listService;
 
+    // The service that writes streamed imports in chunks
+    @Autowired
+    private ListStreamImportService listStreamImportService;
+
+    // Serializes progress events of the streamed import
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Pushes changes of lists to open event streams
+    @Autowired
+    private ListEventService listEventService;
+
+    // Writes pending item edits of a list before it is read
+    @Autowired
+    private ListEditService listEditService;
+
     /**
      * Create a new shopping list.
      * Example request: POST /api/list
@@ -39,28 +71,47 @@ public class ListController {
     }
 
     /**
-     * Get all shopping lists that belong to the currently logged-in user.
-     * Example request: GET /api/list
+     * Get shopping lists that belong to the currently logged-in user, one page at a time.
+     * Example request: GET /api/list?after=MTI&size=50
+     * <p>
+     * Each list is returned as a summary with item totals, without the items themselves.
+     * The response contains a {@code next} cursor which is sent back as {@code after}
+     * to load the following page.
      *
-     * @return a list of all lists for the current user
+     * @param after cursor of the requested page (omit for the first page)
+     * @param size  number of lists per page (omit for the default size)
+     * @return a page of lists for the current user
      */
     @GetMapping
-    public List<ListDTO> getListsForCurrentUser() {
-        // Calls the service to get all lists for the current user
-        return listService.getAllByOwner();
+    public CursorPageDTO<ListSummaryDTO> getListsForCurrentUser(@RequestParam(required = false) String after,
+                                                                @RequestParam(required = false) Integer size) {
+        // Calls the service to get a page of lists for the current user
+        return listService.getAllByOwner(after, size);
     }
 
     /**
      * Get one specific shopping list with its items.
      * Example request: GET /api/list/5
+     * <p>
+     * The response carries an ETag based on the change version of the list.
+     * If the client sends it back in {@code If-None-Match} and the list has not changed,
+     * the answer is {@code 304 Not Modified} and the list is not loaded at all.
      *
-     * @param listId the ID of the list to get
-     * @return the list with its items as DTO
+     * @param listId  the ID of the list to get
+     * @param request current request (used for the conditional check)
+     * @param user    currently authenticated user
+     * @return the list with its items as DTO, or 304 without body
      */
     @GetMapping("/{listId}")
-    public ListDTO getList(@PathVariable Long listId) {
-        // Calls the service to get a single list with its items
-        return listService.getListWithItems(listId);
+    public ResponseEntity<ListDTO> getList(@PathVariable Long listId, WebRequest request,
+                                           @AuthenticationPrincipal UserEntity user) {
+        // Pending item edits of the list are written first (after the access check), so the response includes them
+        listEditService.flush(listId, user);
+        // Read the version first, so the ETag is never newer than the returned data
+        String etag = ListETag.of("list", listId, listService.getChangeVersion(listId));
+
+        // Calls the service to get a single list with its items (only if the client copy is outdated)
+        return ListETag.respond(request, etag, () -> listService.getListWithItems(listId));
     }
 
     /**
@@ -116,6 +167,55 @@ public class ListController {
         return listService.importList(guestLists);
     }
 
+    /**
+     * Import a large number of lists from a newline-delimited JSON stream.
+     * Example request: POST /api/list/import/stream (Content-Type: application/x-ndjson)
+     * <p>
+     * Every line of the body contains one list in the same format as {@code /import}.
+     * The body is read incrementally and written in bounded chunks, so the request size
+     * is not limited by server memory. The response is also NDJSON: one {@code progress}
+     * line per committed chunk, one {@code error} line per rejected input line
+     * and a final {@code done} line with the totals.
+     *
+     * @param input body of the request
+     * @param user  currently authenticated user (owner of the imported lists)
+     * @return streamed progress report
+     */
+    @PostMapping(value = "/import/stream", consumes = "application/x-ndjson", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> importListsStream(InputStream input,
+                                                                   @AuthenticationPrincipal UserEntity user) {
+        StreamingResponseBody body = output -> listStreamImportService.importLists(input, user, event -> {
+            // Every event is sent to the client immediately as one JSON line
+            try {
+                output.write(objectMapper.writeValueAsBytes(event));
+                output.write('\n');
+                output.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    /**
+     * Subscribe to changes of a list as a stream of Server-Sent Events.
+     * Example request: GET /api/list/5/events (Accept: text/event-stream)
+     * <p>
+     * The first event ({@code ready}) carries the current change version of the list.
+     * Every committed change is then sent as a {@code change} event with the new version,
+     * the IDs of changed and deleted items, or the type {@code LIST_UPDATED} / {@code LIST_DELETED}.
+     * A client that misses events (reconnect, slow connection) catches up with
+     * {@code GET /api/list/{listId}/items?since=<version>}.
+     *
+     * @param listId the ID of the list
+     * @param user   currently authenticated user (must be able to read the list)
+     * @return open event stream
+     */
+    @GetMapping(value = "/{listId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter listEvents(@PathVariable Long listId, @AuthenticationPrincipal UserEntity user) {
+        return listEventService.subscribe(listId, user);
+    }
+
     /**
      * Delete a specific list by its ID.
      * Example request: DELETE /api/list/5
@@ -0,0 +1,52 @@
+package michal.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Helper for conditional GET requests of list resources.
+ * <p>
+ * The ETag is derived from the change version of the list, so the controller can
+ * answer {@code 304 Not Modified} before the list or its items are loaded.
+ * Responses are marked {@code private, no-cache}: the browser keeps them,
+ * but always revalidates them with {@code If-None-Match}.
+ */
+final class ListETag {
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private ListETag() {
+    }
+
+    /**
+     * Builds a strong ETag for a resource of the list.
+     *
+     * @param resource name of the resource (different representations of the same list need different tags)
+     * @param listId   ID of the list
+     * @param version  change version of the list
+     * @return quoted ETag value
+     */
+    static String of(String resource, Long listId, long version) {
+        return "\"" + resource + "-" + listId + "-" + version + "\"";
+    }
+
+    /**
+     * Returns {@code 304 Not Modified} if the client already has the current version,
+     * otherwise loads the body and returns it together with the ETag.
+     *
+     * @param request current request (with the {@code If-None-Match} header)
+     * @param etag    current ETag of the resource
+     * @param body    loads the response body, called only when the client copy is outdated
+     * @return response with status 200 or 304
+     */
+    static <T> ResponseEntity<T> respond(WebRequest request, String etag, Supplier<T> body) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CACHE_CONTROL).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CACHE_CONTROL).body(body.get());
+    }
+}
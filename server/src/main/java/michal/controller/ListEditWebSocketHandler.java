@@ -0,0 +1,213 @@
+package michal.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import michal.dto.ErrorResponse;
+import michal.dto.ItemBatchOperationDTO;
+import michal.dto.ListChangeEventDTO;
+import michal.dto.ListEditRejectedEventDTO;
+import michal.entity.UserEntity;
+import michal.entity.enumy.ListChangeType;
+import michal.service.Exception.ForbiddenException;
+import michal.service.Exception.ValidationException;
+import michal.service.ListAccessService;
+import michal.service.ListEditService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebSocket endpoint for collaborative editing of the items of one list.
+ * Example connection: ws://host/api/list/5/edit
+ * <p>
+ * The client sends item operations as JSON, either one {@link ItemBatchOperationDTO}
+ * or an array of them (the same format as {@code PATCH /api/list/{listId}/items}).
+ * The operations are queued and written in merged batches by {@link ListEditService}.
+ * Every committed change of the list (from this channel or from the REST API) is sent
+ * back to all connected clients as a {@link ListChangeEventDTO}; a rejected message
+ * is answered with an {@link ErrorResponse} to its sender only, and queued edits that
+ * could not be written are reported to the connections of their submitter
+ * ({@link ListEditRejectedEventDTO}).
+ * </p>
+ */
+@Component
+public class ListEditWebSocketHandler extends TextWebSocketHandler {
+
+    /** URL of the endpoint (the list ID is taken from the path). */
+    public static final String PATH = "/api/list/{listId}/edit";
+
+    private static final UriTemplate PATH_TEMPLATE = new UriTemplate(PATH);
+
+    private static final String LIST_ID = "listId";
+
+    private static final String SENDER = "sender";
+
+    // The service that queues and writes item operations
+    @Autowired
+    private ListEditService listEditService;
+
+    // Checks read access when a client connects
+    @Autowired
+    private ListAccessService listAccessService;
+
+    // Reads operations and writes change events
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /** Maximum time one send may take before the connection is closed. */
+    @Value("${app.items.edit.send-time-limit-millis:5000}")
+    private int sendTimeLimit;
+
+    /** Maximum number of bytes buffered for one slow connection before it is closed. */
+    @Value("${app.items.edit.buffer-size-limit:65536}")
+    private int bufferSizeLimit;
+
+    /** Open connections per list ID (thread-safe decorators of the sessions). */
+    private final Map<Long, Set<WebSocketSession>> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a new connection after checking read access to the list.
+     *
+     * @param session new connection
+     */
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        UserEntity user = user(session);
+        Map<String, String> path = PATH_TEMPLATE.match(session.getUri().getPath());
+        Long listId;
+        try {
+            listId = Long.valueOf(path.get(LIST_ID));
+            listAccessService.checkRead(listId, user);
+        } catch (RuntimeException e) {
+            session.close(CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+        session.getAttributes().put(LIST_ID, listId);
+
+        // Sends from several threads (commits of different requests) are serialized and bounded.
+        WebSocketSession concurrent = new ConcurrentWebSocketSessionDecorator(
+                session, sendTimeLimit, bufferSizeLimit, OverflowStrategy.TERMINATE);
+        session.getAttributes().put(SENDER, concurrent);
+        sessions.computeIfAbsent(listId, key -> ConcurrentHashMap.newKeySet()).add(concurrent);
+    }
+
+    /**
+     * Queues the operations of one message.
+     *
+     * @param session connection of the sender
+     * @param message JSON operation or array of operations
+     */
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        Long listId = (Long) session.getAttributes().get(LIST_ID);
+        if (listId == null) return;
+
+        try {
+            JsonNode json = objectMapper.readTree(message.getPayload());
+            List<ItemBatchOperationDTO> operations = json.isArray()
+                    ? List.of(objectMapper.treeToValue(json, ItemBatchOperationDTO[].class))
+                    : List.of(objectMapper.treeToValue(json, ItemBatchOperationDTO.class));
+            listEditService.submit(listId, operations, user(session));
+        } catch (JsonProcessingException e) {
+            reply(session, new ErrorResponse("INVALID_JSON", e.getOriginalMessage()));
+        } catch (ValidationException e) {
+            reply(session, new ErrorResponse(e.getCode().name(), e.getMessage()));
+        } catch (ForbiddenException e) {
+            reply(session, new ErrorResponse("FORBIDDEN", e.getMessage()));
+        }
+    }
+
+    /**
+     * Removes a closed connection.
+     *
+     * @param session closed connection
+     * @param status close status
+     */
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Long listId = (Long) session.getAttributes().get(LIST_ID);
+        if (listId == null) return;
+        sessions.computeIfPresent(listId, (key, set) -> {
+            set.remove(session.getAttributes().get(SENDER));
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Sends a committed change of a list to all its connections.
+     *
+     * @param event change of the list
+     */
+    @TransactionalEventListener
+    public void onListChange(ListChangeEventDTO event) throws JsonProcessingException {
+        Set<WebSocketSession> listeners = sessions.get(event.getListId());
+        if (listeners == null) return;
+
+        // Serialized once for all connections.
+        TextMessage message = new TextMessage(objectMapper.writeValueAsString(event));
+        for (WebSocketSession session : listeners) {
+            try {
+                session.sendMessage(message);
+                if (event.getType() == ListChangeType.LIST_DELETED) {
+                    session.close(CloseStatus.NORMAL);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The connection is broken or too slow; the client reconnects and resynchronizes.
+                afterConnectionClosed(session, CloseStatus.SESSION_NOT_RELIABLE);
+            }
+        }
+    }
+
+    /**
+     * Tells the connections of a user that their queued edits were not written.
+     *
+     * @param event rejected edits of the list
+     */
+    @EventListener
+    public void onEditRejected(ListEditRejectedEventDTO event) throws JsonProcessingException {
+        Set<WebSocketSession> listeners = sessions.get(event.getListId());
+        if (listeners == null) return;
+
+        TextMessage message = new TextMessage(objectMapper.writeValueAsString(event));
+        for (WebSocketSession session : listeners) {
+            UserEntity user = user(session);
+            if (user == null || !event.getUserId().equals(user.getId())) continue;
+            try {
+                session.sendMessage(message);
+            } catch (IOException | IllegalStateException e) {
+                afterConnectionClosed(session, CloseStatus.SESSION_NOT_RELIABLE);
+            }
+        }
+    }
+
+    /** Sends a message to one connection only. */
+    private void reply(WebSocketSession session, ErrorResponse error) throws IOException {
+        WebSocketSession sender = (WebSocketSession) session.getAttributes().get(SENDER);
+        sender.sendMessage(new TextMessage(objectMapper.writeValueAsString(error)));
+    }
+
+    /** Authenticated user of the HTTP handshake. */
+    private static UserEntity user(WebSocketSession session) {
+        if (session.getPrincipal() instanceof Authentication auth && auth.getPrincipal() instanceof UserEntity user) {
+            return user;
+        }
+        return null;
+    }
+}
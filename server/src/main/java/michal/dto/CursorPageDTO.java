@@ -0,0 +1,27 @@
+package michal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object representing one page of a cursor-paginated collection.
+ * <p>
+ * The client passes the {@code next} value back as the {@code after} request parameter
+ * to load the following page. When {@code next} is null, there are no more pages.
+ *
+ * @param <T> type of the page entries
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageDTO<T> {
+
+    /** Entries contained in this page. */
+    private List<T> items;
+
+    /** Opaque cursor of the following page, or null for the last page. */
+    private String next;
+}
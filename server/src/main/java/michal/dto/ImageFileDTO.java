@@ -0,0 +1,36 @@
+package michal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.core.io.Resource;
+
+/**
+ * Stored file of an image resolved for one request (original or thumbnail).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImageFileDTO {
+
+    /** File to send. */
+    private Resource resource;
+
+    /** MIME content type of the file (e.g. "image/png"). */
+    private String contentType;
+
+    /** Internal stored name of the file (unique for its content, used as the ETag). */
+    private String storedName;
+
+    /**
+     * Length of the file in bytes when it is known from the cached metadata (the original),
+     * otherwise null and the length is taken from the file.
+     */
+    private Long size;
+
+    /**
+     * True if the same request always returns this file, so clients may cache it forever.
+     * False while a requested thumbnail is not generated yet and the original is sent instead.
+     */
+    private boolean immutable;
+}
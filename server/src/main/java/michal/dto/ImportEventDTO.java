@@ -0,0 +1,58 @@
+package michal.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of the progress report of the streaming list import.
+ * <p>
+ * The import endpoint answers with newline-delimited JSON: a {@code progress} event after every
+ * committed chunk, an {@code error} event for every input line that could not be imported
+ * and a final {@code done} event with the totals.
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportEventDTO {
+
+    /** Event type: {@code progress}, {@code error} or {@code done}. */
+    private String type;
+
+    /** Input line the event refers to (last processed line for progress and done). */
+    private long line;
+
+    /** Number of lists imported so far (not set for errors). */
+    private Long lists;
+
+    /** Number of items imported so far (not set for errors). */
+    private Long items;
+
+    /** Last input line of a failed chunk (errors of chunks only; {@link #line} is the first one). */
+    private Long lastLine;
+
+    /** Stable error code, e.g. {@code INVALID_JSON} or {@code IMPORT_CHUNK_FAILED} (errors only). */
+    private String code;
+
+    /** Error description for the user (errors only). */
+    private String message;
+
+    public static ImportEventDTO progress(long line, long lists, long items) {
+        return new ImportEventDTO("progress", line, lists, items, null, null, null);
+    }
+
+    public static ImportEventDTO error(long line, String code, String message) {
+        return new ImportEventDTO("error", line, null, null, null, code, message);
+    }
+
+    public static ImportEventDTO error(long line, long lastLine, String code, String message) {
+        return new ImportEventDTO("error", line, null, null, lastLine, code, message);
+    }
+
+    public static ImportEventDTO done(long line, long lists, long items) {
+        return new ImportEventDTO("done", line, lists, items, null, null, null);
+    }
+}
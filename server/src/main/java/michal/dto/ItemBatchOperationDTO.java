@@ -0,0 +1,34 @@
+package michal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import michal.entity.enumy.ItemBatchOperationType;
+
+/**
+ * One operation of a batch item request.
+ * <p>
+ * The frontend sends a list of these objects to {@code PATCH /api/list/{listId}/items}.
+ * Fields that are not needed by the operation type are left {@code null}.
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemBatchOperationDTO {
+
+    /** Operation to perform. */
+    private ItemBatchOperationType op;
+
+    /** ID of the item the operation applies to. */
+    private Long id;
+
+    /** New purchased flag (required for SET_PURCHASED, optional for UPDATE). */
+    private Boolean purchased;
+
+    /** New name of the item (UPDATE only, optional). */
+    private String name;
+
+    /** New count of the item (UPDATE only, optional). */
+    private Float count;
+}
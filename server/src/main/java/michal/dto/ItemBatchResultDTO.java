@@ -0,0 +1,24 @@
+package michal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import michal.entity.enumy.ItemBatchStatus;
+
+/**
+ * Result of one operation of a batch item request.
+ * <p>
+ * Results are returned in the same order as the operations in the request.
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemBatchResultDTO {
+
+    /** ID of the item the operation applied to. */
+    private Long id;
+
+    /** Whether the operation was applied. */
+    private ItemBatchStatus status;
+}
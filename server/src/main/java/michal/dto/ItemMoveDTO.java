@@ -0,0 +1,17 @@
+package michal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * New place of an item sent to {@code PUT /api/list/{listId}/items/{id}/position}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemMoveDTO {
+
+    /** ID of the item the moved item is placed after, or {@code null} to move it to the top of the list. */
+    private Long afterId;
+}
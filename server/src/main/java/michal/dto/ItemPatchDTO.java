@@ -0,0 +1,30 @@
+package michal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Partial change of one item sent to {@code PATCH /api/list/{listId}/items/{id}}.
+ * <p>
+ * Only the fields that are not {@code null} are changed (e.g. a checkbox tap sends
+ * just {@code purchased}). The change is applied only if the item still has the given version.
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemPatchDTO {
+
+    /** Version of the item the client edited (required). */
+    private Long version;
+
+    /** New purchased flag (optional). */
+    private Boolean purchased;
+
+    /** New name of the item (optional). */
+    private String name;
+
+    /** New count of the item (optional). */
+    private Float count;
+}
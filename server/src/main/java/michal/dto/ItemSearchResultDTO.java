@@ -0,0 +1,35 @@
+package michal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object representing one item found by the cross-list search.
+ * <p>
+ * Besides the item itself it carries the list it belongs to,
+ * so the frontend can show "where" the item is and open that list.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemSearchResultDTO {
+
+    /** Unique identifier of the item. */
+    private Long id;
+
+    /** Name of the item. */
+    private String name;
+
+    /** Quantity of the item. */
+    private float count;
+
+    /** Whether the item is already purchased. */
+    private boolean purchased;
+
+    /** ID of the list the item belongs to. */
+    private Long listId;
+
+    /** Name of the list the item belongs to. */
+    private String listName;
+}
@@ -34,4 +34,10 @@ public class ItemsDTO {
     private Long imageId;
 
     private String imageUrl;
+
+    /** Optimistic lock version of the item (sent back with changes to detect concurrent edits). */
+    private Long version;
+
+    /** Sort key of the item within its list (assigned by the server, items are returned in this order). */
+    private Long position;
 }
@@ -0,0 +1,33 @@
+package michal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Incremental change set of the items of a list, returned by the delta sync.
+ * <p>
+ * The client stores {@code version} and sends it back as {@code since} on the next refresh.
+ * If {@code full} is true, {@code changed} contains all items of the list and the client
+ * replaces its local copy instead of merging.
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemsDeltaDTO {
+
+    /** Change version of the list the delta was computed at. */
+    private long version;
+
+    /** True if the response contains the whole collection instead of a delta. */
+    private boolean full;
+
+    /** Items created or changed since the requested version. */
+    private List<ItemsDTO> changed;
+
+    /** IDs of items deleted since the requested version. */
+    private List<Long> deleted;
+}
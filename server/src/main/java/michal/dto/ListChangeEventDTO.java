@@ -0,0 +1,48 @@
+package michal.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import michal.entity.enumy.ListChangeType;
+
+import java.util.List;
+
+/**
+ * Compact notification about a change of a list.
+ * <p>
+ * Published by the services when a list or its items change and delivered after commit
+ * to clients subscribed to {@code GET /api/list/{listId}/events}. The event carries only
+ * IDs and the new change version; clients load the data with the delta sync
+ * ({@code GET /api/list/{listId}/items?since=...}).
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class ListChangeEventDTO {
+
+    /** ID of the changed list. */
+    private Long listId;
+
+    /** Change version of the list after the change. */
+    private long version;
+
+    /** Kind of the change. */
+    private ListChangeType type;
+
+    /** IDs of created or changed items (ITEMS only). */
+    private List<Long> changed;
+
+    /** IDs of deleted items (ITEMS only). */
+    private List<Long> deleted;
+
+    public static ListChangeEventDTO items(Long listId, long version, List<Long> changed, List<Long> deleted) {
+        return new ListChangeEventDTO(listId, version, ListChangeType.ITEMS, changed, deleted);
+    }
+
+    public static ListChangeEventDTO list(Long listId, long version, ListChangeType type) {
+        return new ListChangeEventDTO(listId, version, type, null, null);
+    }
+}
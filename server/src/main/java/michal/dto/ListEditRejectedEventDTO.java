@@ -0,0 +1,33 @@
+package michal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Notification that queued item edits of one user could not be written.
+ * <p>
+ * Published by {@link michal.service.ListEditService} when a batch that was already accepted
+ * (answered with {@code QUEUED}) is rejected or keeps failing. It is delivered only to the
+ * connections of the user who submitted the edits; the client reloads the items with the delta sync.
+ * </p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ListEditRejectedEventDTO {
+
+    /** ID of the list the edits belong to. */
+    private Long listId;
+
+    /** ID of the user who submitted the edits. */
+    private Long userId;
+
+    /** Reason of the rejection (e.g. FORBIDDEN or EDITS_NOT_WRITTEN). */
+    private String code;
+
+    /** IDs of the items whose edits were not written. */
+    private List<Long> items;
+}
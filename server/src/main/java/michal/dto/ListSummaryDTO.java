@@ -0,0 +1,36 @@
+package michal.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object representing a shopping list in the list overview.
+ * <p>
+ * Unlike {@link ListDTO}, it never carries items, only their totals.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ListSummaryDTO {
+
+    /** Unique identifier of the list. */
+    @JsonProperty("_id")
+    private Long id;
+
+    /** Name of the shopping list. */
+    private String name;
+
+    /** ID of the user who owns this list. */
+    private Long ownerId;
+
+    /** Number of items contained in this list. */
+    private long itemsCount;
+
+    /** Number of items already marked as purchased. */
+    private long purchasedCount;
+
+    /** Number of items that still have to be bought. */
+    private long unpurchasedCount;
+}
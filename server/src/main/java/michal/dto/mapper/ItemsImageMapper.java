@@ -5,7 +5,6 @@ import michal.entity.ItemsImageEntity;
 import michal.entity.enumy.ImageType;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
-import org.springframework.web.multipart.MultipartFile;
 
 /**
  * MapStruct mapper for converting uploaded image data into {@link ItemsImageEntity}
@@ -20,27 +19,29 @@ import org.springframework.web.multipart.MultipartFile;
 public interface ItemsImageMapper {
 
     /**
-     * Creates a new {@link ItemsImageEntity} based on an uploaded file and detected image type.
+     * Creates a new {@link ItemsImageEntity} based on an uploaded image and detected image type.
      *
      * <p>
-     * The method maps only metadata that can be derived directly from the uploaded file
+     * The method maps only metadata that can be derived directly from the upload
      * (size, original filename) and from server-side validation (content type).
      * Fields such as ID, storedName, createdAt and the item relation are ignored because they
      * are set later in the service layer.
      * </p>
      *
-     * @param file uploaded multipart file (image)
-     * @param imageType validated/normalized image type (e.g. PNG, JPEG)
+     * @param originalName file name sent by the client (may be null)
+     * @param size number of bytes actually stored
+     * @param imageType image type detected from the content (e.g. PNG, JPEG)
      * @return new entity instance with mapped metadata
      */
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "storedName", ignore = true)
     @Mapping(target = "item", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
-    @Mapping(target = "size", source = "file.size")
-    @Mapping(target = "originalName", source = "file.originalFilename")
+    @Mapping(target = "variants", ignore = true)
+    @Mapping(target = "size", source = "size")
+    @Mapping(target = "originalName", source = "originalName")
     @Mapping(target = "contentType", source = "imageType")
-    ItemsImageEntity fromUpload(MultipartFile file, ImageType imageType);
+    ItemsImageEntity fromUpload(String originalName, Long size, ImageType imageType);
 
     /**
      * Converts an image entity to a DTO used by the API.
@@ -1,7 +1,10 @@
 package michal.dto.mapper;
 
+import michal.dto.ItemSearchResultDTO;
 import michal.dto.ItemsDTO;
 import michal.entity.ItemsEntity;
+import michal.entity.repository.ItemChangeView;
+import michal.entity.repository.ItemSearchView;
 import org.mapstruct.AfterMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -30,6 +33,9 @@ public interface ItemsMapper {
      * @return entity instance to be persisted
      */
     @Mapping(target = "list.id", source = "listId")
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "position", ignore = true)
+    @Mapping(target = "changeVersion", ignore = true)
     ItemsEntity toEntity(ItemsDTO source);
 
     /**
@@ -53,6 +59,23 @@ public interface ItemsMapper {
     @Mapping(target = "imageUrl", ignore = true)
     ItemsDTO toDTO(ItemsEntity source);
 
+    /**
+     * Converts a search projection into an {@link ItemSearchResultDTO}.
+     *
+     * @param source search result loaded from the database
+     * @return DTO returned by the search endpoint
+     */
+    ItemSearchResultDTO toSearchResultDTO(ItemSearchView source);
+
+    /**
+     * Converts an item returned by a conditional update into an {@link ItemsDTO}.
+     *
+     * @param source changed item returned by the update statement
+     * @return DTO returned by the API
+     */
+    @Mapping(target = "imageUrl", ignore = true)
+    ItemsDTO toDTO(ItemChangeView source);
+
     /**
      * Enriches the mapped DTO with a computed image URL.
      *
@@ -72,4 +95,17 @@ public interface ItemsMapper {
         }
     }
 
+    /**
+     * Enriches a DTO mapped from {@link ItemChangeView} with the image URL.
+     *
+     * @param source changed item (used to read the image ID)
+     * @param dto DTO target that will be returned to the client
+     */
+    @AfterMapping
+    default void fillImageUrl(ItemChangeView source, @MappingTarget ItemsDTO dto) {
+        if (source.getImageId() != null) {
+            dto.setImageUrl("/api/images/" + source.getImageId());
+        }
+    }
+
 }
@@ -1,7 +1,9 @@
 package michal.dto.mapper;
 
 import michal.dto.ListDTO;
+import michal.dto.ListSummaryDTO;
 import michal.entity.ListEntity;
+import michal.entity.repository.ListSummaryView;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
@@ -15,7 +17,7 @@ import org.mapstruct.MappingTarget;
  * should be managed explicitly in business logic.
  * </p>
  */
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = {ItemsMapper.class})
 public interface ListMapper {
 
     /**
@@ -24,6 +26,7 @@ public interface ListMapper {
      * <p>
      * Collection fields such as {@code items} and {@code sharedWith} are ignored
      * because they are managed separately and should not be overwritten during mapping.
+     * The item counters are maintained by the service layer and are ignored as well.
      * </p>
      *
      * @param source DTO coming from the API layer
@@ -32,6 +35,10 @@ public interface ListMapper {
     @Mapping(target = "owner.id", source = "ownerId")
     @Mapping(target = "items", ignore = true)
     @Mapping(target = "sharedWith", ignore = true)
+    @Mapping(target = "itemsCount", ignore = true)
+    @Mapping(target = "purchasedCount", ignore = true)
+    @Mapping(target = "changeVersion", ignore = true)
+    @Mapping(target = "syncFloorVersion", ignore = true)
     ListEntity toEntity(ListDTO source);
 
     /**
@@ -39,16 +46,29 @@ public interface ListMapper {
      *
      * <p>
      * Flattens the owner relationship by mapping {@code owner.id} to {@code ownerId}.
-     * The number of items is ignored here and can be calculated separately.
+     * The number of items is taken from the denormalized counter of the list.
      * </p>
      *
      * @param source entity loaded from the database
      * @return DTO representation of the list
      */
     @Mapping(target = "ownerId", source = "owner.id")
-    @Mapping(target = "itemsCount", ignore = true)
     ListDTO toDTO(ListEntity source);
 
+    /**
+     * Converts a {@link ListSummaryView} projection into a {@link ListSummaryDTO}.
+     *
+     * <p>
+     * The number of unpurchased items is derived from the two counts
+     * returned by the projection query.
+     * </p>
+     *
+     * @param source summary projection loaded from the database
+     * @return DTO representation of the list summary
+     */
+    @Mapping(target = "unpurchasedCount", expression = "java(source.getItemsCount() - source.getPurchasedCount())")
+    ListSummaryDTO toSummaryDTO(ListSummaryView source);
+
     /**
      * Updates an existing {@link ListEntity} with values from {@link ListDTO}.
      *
@@ -64,5 +84,9 @@ public interface ListMapper {
     @Mapping(target = "owner.id", source = "ownerId")
     @Mapping(target = "items", ignore = true)
     @Mapping(target = "sharedWith", ignore = true)
+    @Mapping(target = "itemsCount", ignore = true)
+    @Mapping(target = "purchasedCount", ignore = true)
+    @Mapping(target = "changeVersion", ignore = true)
+    @Mapping(target = "syncFloorVersion", ignore = true)
     void updateEntity(ListDTO listDTO, @MappingTarget ListEntity listEntity);
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package michal.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Record of a deleted item, used by the delta sync of items.
+ * <p>
+ * Mapped to the database table "item_tombstones". The list is stored as a plain ID
+ * (without a foreign key), so tombstones can outlive their list until they are purged.
+ * Tombstones are kept for a limited time ({@code app.items.tombstone-retention-days}).
+ */
+@Entity(name = "item_tombstones")
+@Table(name = "item_tombstones", indexes = {
+        // Serves the delta sync (deletions of a list after a version).
+        @Index(name = "idx_item_tombstones_list_version", columnList = "list_id, change_version")
+})
+@Getter
+@Setter
+public class ItemTombstoneEntity {
+
+    /** ID of the deleted item. */
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    /** ID of the list the item belonged to. */
+    @Column(name = "list_id", nullable = false)
+    private Long listId;
+
+    /** Change version of the list in which the item was deleted. */
+    @Column(nullable = false)
+    private long changeVersion;
+
+    /** Time of the deletion (used for the retention window). */
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+}
@@ -3,6 +3,7 @@ package michal.entity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 /**
  * Entity representing an item in a shopping list.
@@ -10,6 +11,12 @@ import lombok.Setter;
  * Mapped to the database table "items".
  */
 @Entity(name = "items")
+@Table(name = "items", indexes = {
+        // Serves loading the items of a list and the delta sync (items changed after a version).
+        @Index(name = "idx_items_list_version", columnList = "list_id, change_version"),
+        // Serves reading the items of a list in display order and finding the neighbours of a moved item.
+        @Index(name = "idx_items_list_position", columnList = "list_id, position, id")
+})
 @Getter
 @Setter
 public class ItemsEntity {
@@ -17,7 +24,7 @@ public class ItemsEntity {
     /** Unique identifier of the item. */
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
-    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 1)
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     private Long id;
 
     /** Name of the item, for example "Milk" or "Bread". */
@@ -37,6 +44,43 @@ public class ItemsEntity {
     @Column
     private boolean purchased;
 
+    /**
+     * Sort key of the item within its list (display order, ties ordered by ID).
+     *
+     * <p>
+     * Keys are sparse (a gap of {@code app.items.position-step} between neighbours),
+     * so moving an item only writes a key between its new neighbours.
+     * All keys of a list are rewritten only when there is no gap left.
+     * </p>
+     */
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long position;
+
+    /**
+     * Change version of the list at the time this item was last created or changed.
+     *
+     * <p>
+     * Used by the delta sync: items with a higher version than the client knows are sent again.
+     * </p>
+     */
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long changeVersion;
+
+    /**
+     * Optimistic lock version of the item, incremented by every change of the item.
+     *
+     * <p>
+     * Clients send the version they edited; a change based on an older version
+     * is rejected with 409 instead of silently overwriting a concurrent edit.
+     * </p>
+     */
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
     @OneToOne(mappedBy = "item", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private ItemsImageEntity image;
 
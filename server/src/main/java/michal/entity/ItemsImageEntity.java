@@ -17,6 +17,10 @@ import java.time.LocalDate;
  * </p>
  */
 @Entity(name = "image")
+@Table(name = "image", indexes = {
+        // Serves counting the references of a stored file (content-addressed files are shared).
+        @Index(name = "idx_image_stored_name", columnList = "stored_name")
+})
 @Getter
 @Setter
 public class ItemsImageEntity {
@@ -30,7 +34,7 @@ public class ItemsImageEntity {
      */
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "images_seq")
-    @SequenceGenerator(name = "images_seq", sequenceName = "images_seq", allocationSize = 1)
+    @SequenceGenerator(name = "images_seq", sequenceName = "images_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -41,6 +45,12 @@ public class ItemsImageEntity {
      * (e.g. UUID or timestamp-based) to avoid filename collisions.
      * It does not have to match the original uploaded filename.
      * </p>
+     *
+     * <p>
+     * In content-addressed mode ({@code app.storage.content-addressed}) the name is the
+     * SHA-256 hash of the content, so images with the same content share one file
+     * of the list owner.
+     * </p>
      */
     @Column
     private String storedName;
@@ -88,4 +98,17 @@ public class ItemsImageEntity {
      */
     @Column
     private Long size;
+
+    /**
+     * Sizes of the generated thumbnails, e.g. "64,256".
+     *
+     * <p>
+     * Thumbnails are generated in the background after the upload commits,
+     * so the value is null until they are ready. Only sizes smaller than
+     * the original are generated; an empty value means that there are none
+     * (small image or a type without thumbnails).
+     * </p>
+     */
+    @Column
+    private String variants;
 }
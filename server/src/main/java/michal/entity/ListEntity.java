@@ -3,6 +3,8 @@ package michal.entity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.HashSet;
 import java.util.List;
@@ -12,8 +14,17 @@ import java.util.Set;
  * Entity representing a shopping list.
  * <p>
  * Mapped to the database table "lists".
+ * <p>
+ * Updates are written with {@link DynamicUpdate}, and the item counters and versions are
+ * not updatable through the entity: they are maintained only by update statements of
+ * {@link michal.entity.repository.ListRepository}, so saving a loaded list never overwrites them.
  */
 @Entity(name = "lists")
+@Table(name = "lists", indexes = {
+        // Serves the "owned lists" branch of the list overview (filter by owner, keyset by id).
+        @Index(name = "idx_lists_owner_id", columnList = "owner_id, id")
+})
+@DynamicUpdate
 @Getter
 @Setter
 public class ListEntity {
@@ -21,15 +32,58 @@ public class ListEntity {
     /** Unique identifier of the list. */
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lists_seq")
-    @SequenceGenerator(name = "lists_seq", sequenceName = "lists_seq", allocationSize = 1)
+    @SequenceGenerator(name = "lists_seq", sequenceName = "lists_seq", allocationSize = 50)
     private Long id;
 
     /** Name of the shopping list. */
     @Column
     private String name;
 
-    /** List of items that belong to this shopping list. */
+    /**
+     * Number of items in this list.
+     *
+     * <p>
+     * Denormalized counter kept in sync by the item service in the same transaction
+     * as the item change, so list summaries do not need to count items.
+     * </p>
+     */
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private long itemsCount;
+
+    /** Number of items in this list that are marked as purchased (denormalized like {@link #itemsCount}). */
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private long purchasedCount;
+
+    /**
+     * Version of the list content.
+     *
+     * <p>
+     * Incremented on every change of the list or its items. It is used as the
+     * ETag of the list and its items, so unchanged lists can be answered with
+     * {@code 304 Not Modified} without loading the items.
+     * </p>
+     */
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private long changeVersion;
+
+    /**
+     * Oldest change version from which a delta of the items can still be computed.
+     *
+     * <p>
+     * Raised when old item tombstones are purged; clients that synchronized
+     * before this version receive the full item collection.
+     * </p>
+     */
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private long syncFloorVersion;
+
+    /** List of items that belong to this shopping list, in display order. */
     @OneToMany(mappedBy = "list", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("position ASC, id ASC")
     private List<ItemsEntity> items;
 
     /** User who owns this list. */
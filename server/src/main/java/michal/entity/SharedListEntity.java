@@ -18,7 +18,11 @@ import lombok.Setter;
 @Entity
 @Table(
         name = "shared_lists",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"list_id", "user_id"})
+        uniqueConstraints = @UniqueConstraint(columnNames = {"list_id", "user_id"}),
+        indexes = {
+                // Serves lookups of lists shared with a user (filter by user, keyset by list).
+                @Index(name = "idx_shared_lists_user_list", columnList = "user_id, list_id")
+        }
 )
 @Getter
 @Setter
@@ -31,7 +35,7 @@ public class SharedListEntity {
      */
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lists_seq")
-    @SequenceGenerator(name = "lists_seq", sequenceName = "lists_seq", allocationSize = 1)
+    @SequenceGenerator(name = "lists_seq", sequenceName = "lists_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -23,7 +23,7 @@ public class UserEntity implements UserDetails {
     /** Unique identifier of the user. */
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
-    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 1)
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     /** Email address of the user (used as username). */
@@ -22,6 +22,11 @@ public enum ImageType {
     PNG("image/png", ".png"),
     WEBP("image/webp", ".webp");
 
+    /**
+     * Number of leading bytes needed by {@link #fromSignature(byte[], int)}.
+     */
+    public static final int SIGNATURE_LENGTH = 12;
+
     /**
      * MIME content type sent by the client / detected by the server.
      */
@@ -65,4 +70,44 @@ public enum ImageType {
                 .filter(t -> t.contentType.equalsIgnoreCase(contentType))
                 .findFirst();
     }
+
+    /**
+     * Detects an {@link ImageType} from the first bytes of the file content.
+     *
+     * <p>
+     * Only the signatures of the supported formats are recognized
+     * (JPEG {@code FF D8 FF}, PNG {@code 89 50 4E 47 0D 0A 1A 0A}, WEBP {@code RIFF....WEBP}).
+     * The content type sent by the client is not trusted.
+     * </p>
+     *
+     * @param header leading bytes of the content
+     * @param length number of valid bytes in {@code header}
+     * @return detected ImageType wrapped in Optional
+     */
+    public static Optional<ImageType> fromSignature(byte[] header, int length) {
+        if (startsWith(header, length, 0xFF, 0xD8, 0xFF)) {
+            return Optional.of(JPEG);
+        }
+        if (startsWith(header, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return Optional.of(PNG);
+        }
+        // RIFF container: 4 bytes of size between the "RIFF" and "WEBP" tags.
+        if (length >= SIGNATURE_LENGTH && startsWith(header, length, 'R', 'I', 'F', 'F')
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return Optional.of(WEBP);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] header, int length, int... signature) {
+        if (length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((header[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,13 @@
+package michal.entity.enumy;
+
+/**
+ * Types of operations supported by the batch item endpoint.
+ */
+public enum ItemBatchOperationType {
+    /** Marks the item as purchased or not purchased. */
+    SET_PURCHASED,
+    /** Changes the name, count and/or purchased flag of the item (only provided fields). */
+    UPDATE,
+    /** Removes the item (including its image). */
+    DELETE
+}
@@ -0,0 +1,13 @@
+package michal.entity.enumy;
+
+/**
+ * Result of one operation of an item batch.
+ */
+public enum ItemBatchStatus {
+    /** The operation was applied. */
+    OK,
+    /** The item does not exist in the list (or was deleted earlier in the same batch). */
+    NOT_FOUND,
+    /** The operation was accepted and will be written shortly (write-behind mode). */
+    QUEUED
+}
@@ -0,0 +1,13 @@
+package michal.entity.enumy;
+
+/**
+ * Kinds of changes pushed to clients subscribed to a list.
+ */
+public enum ListChangeType {
+    /** Items were created, changed or deleted (see the item IDs of the event). */
+    ITEMS,
+    /** The list itself was changed (e.g. renamed). */
+    LIST_UPDATED,
+    /** The list was deleted; the stream is closed after this event. */
+    LIST_DELETED
+}
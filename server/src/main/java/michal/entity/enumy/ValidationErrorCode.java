@@ -23,7 +23,16 @@ public enum ValidationErrorCode {
     /** Uploaded image has an unsupported file type. */
     IMAGE_TYPE_NOT_ALLOWED("Nepodporovaný typ obrázku"),
     /** Uploaded image exceeds the allowed size limit. */
-    IMAGE_TOO_LARGE("Obrázek je příliš velký");
+    IMAGE_TOO_LARGE("Obrázek je příliš velký"),
+    /** Batch request contains no operations or more operations than allowed. */
+    ITEM_BATCH_SIZE("Neplatný počet operací v dávce"),
+    /** Batch operation is missing its type, item ID or required value. */
+    ITEM_BATCH_OPERATION_INVALID("Neplatná operace v dávce"),
+    SEARCH_QUERY_TOO_SHORT("Hledaný text je příliš krátký"),
+    /** Partial item change does not say which version of the item it is based on. */
+    ITEM_VERSION_MISSING("Chybí verze položky"),
+    /** Item cannot be placed after itself. */
+    ITEM_MOVE_INVALID("Neplatný přesun položky");
 
     /**
      * Default validation message associated with the error code.
@@ -0,0 +1,13 @@
+package michal.entity.repository;
+
+/**
+ * Projection of one list a user can access, used to build the access cache.
+ */
+public interface AccessibleListView {
+
+    /** ID of the accessible list. */
+    Long getListId();
+
+    /** True if the user owns the list, false if the list is shared with the user. */
+    Boolean getOwned();
+}
@@ -0,0 +1,35 @@
+package michal.entity.repository;
+
+import michal.entity.enumy.ImageType;
+
+/**
+ * Projection of the data needed to authorize and serve an image.
+ *
+ * <p>
+ * Loaded by one indexed lookup instead of loading the image entity
+ * and walking its item, list and owner.
+ * </p>
+ */
+public interface ImageAccessView {
+
+    /** ID of the image. */
+    Long getImageId();
+
+    /** ID of the list the item of the image belongs to. */
+    Long getListId();
+
+    /** ID of the list owner (files of the list are stored in the owner's directory). */
+    Long getOwnerId();
+
+    /** Internal stored file name. */
+    String getStoredName();
+
+    /** Type of the image. */
+    ImageType getContentType();
+
+    /** Size of the original file in bytes, or null if it was not recorded. */
+    Long getSize();
+
+    /** Sizes of the ready thumbnails (e.g. "64,256"), empty if there are none, or null while they are generated. */
+    String getVariants();
+}
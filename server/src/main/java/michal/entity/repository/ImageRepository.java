@@ -2,7 +2,122 @@ package michal.entity.repository;
 
 import michal.entity.ItemsImageEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface ImageRepository extends JpaRepository<ItemsImageEntity, Long> {
 
+    /**
+     * Returns the list, owner and file of an image in one query (used for access checks).
+     *
+     * @param imageId ID of the image
+     * @return access data of the image, or empty if the image does not exist
+     */
+    @Query("""
+    select im.id as imageId, l.id as listId, l.owner.id as ownerId,
+           im.storedName as storedName, im.contentType as contentType, im.size as size,
+           im.variants as variants
+    from image im
+    join im.item i
+    join i.list l
+    where im.id = :imageId
+    """)
+    Optional<ImageAccessView> findAccessById(Long imageId);
+
+    /**
+     * Returns the stored file names of the images of the given items.
+     *
+     * @param itemIds IDs of the items
+     * @return stored file names (items without an image are skipped)
+     */
+    @Query("select i.storedName from image i where i.item.id in :itemIds")
+    List<String> findStoredNamesByItemIds(Collection<Long> itemIds);
+
+    /**
+     * Returns the stored file names of all images of a list.
+     *
+     * @param listId ID of the list
+     * @return stored file names
+     */
+    @Query("select im.storedName from image im where im.item.list.id = :listId")
+    List<String> findStoredNamesByListId(Long listId);
+
+    /**
+     * Locks a stored file of a user until the end of the current transaction.
+     *
+     * <p>
+     * Taken by uploads before a content-addressed file is published and by the file cleanup
+     * before the file is deleted, so a file is never deleted while an upload starts to reference it.
+     * </p>
+     *
+     * @param ownerId ID of the user whose directory contains the file
+     * @param storedName stored file name
+     * @return always 1
+     */
+    @Query(value = """
+    select count(*) from (select pg_advisory_xact_lock(hashtextextended(:ownerId || '/' || :storedName, 0))) file_lock
+    """, nativeQuery = true)
+    long lockStoredFile(Long ownerId, String storedName);
+
+    /**
+     * Counts the images that reference a stored file of a user.
+     *
+     * @param ownerId ID of the list owner whose directory contains the file
+     * @param storedName stored file name
+     * @return number of referencing images
+     */
+    @Query("""
+    select count(im) from image im
+    where im.storedName = :storedName and im.item.list.owner.id = :ownerId
+    """)
+    long countReferences(Long ownerId, String storedName);
+
+    /**
+     * Returns the ready thumbnails of another image with the same stored file.
+     *
+     * @param ownerId ID of the list owner whose directory contains the file
+     * @param storedName stored file name
+     * @return thumbnail sizes (e.g. "64,256"), empty if no image with ready thumbnails uses the file
+     */
+    @Query(value = """
+    select im.variants from image im
+    join items i on i.id = im.item_id
+    join lists l on l.id = i.list_id
+    where im.stored_name = :storedName and l.owner_id = :ownerId and im.variants is not null
+    limit 1
+    """, nativeQuery = true)
+    Optional<String> findVariants(Long ownerId, String storedName);
+
+    /**
+     * Records the generated thumbnails of an image.
+     *
+     * <p>
+     * The stored name is checked as well, so thumbnails of a file that was replaced
+     * or deleted in the meantime are never recorded.
+     * </p>
+     *
+     * @param imageId ID of the image
+     * @param storedName stored file name the thumbnails were generated from
+     * @param variants sizes of the generated thumbnails, e.g. "64,256"
+     * @return 1 if the image still exists with this file, 0 otherwise
+     */
+    @Transactional
+    @Modifying
+    @Query("update image im set im.variants = :variants where im.id = :imageId and im.storedName = :storedName")
+    int setVariants(Long imageId, String storedName, String variants);
+
+    /**
+     * Deletes the images of the given items in one statement.
+     *
+     * @param itemIds IDs of the items
+     * @return number of deleted images
+     */
+    @Modifying
+    @Query("delete from image i where i.item.id in :itemIds")
+    int deleteByItemIds(Collection<Long> itemIds);
 }
@@ -0,0 +1,27 @@
+package michal.entity.repository;
+
+/**
+ * Projection of the data needed to authorize an operation on an item and its image.
+ *
+ * <p>
+ * Loaded by one indexed lookup instead of loading the item entity
+ * and walking its list, owner and image.
+ * </p>
+ */
+public interface ItemAccessView {
+
+    /** ID of the item. */
+    Long getItemId();
+
+    /** ID of the list the item belongs to. */
+    Long getListId();
+
+    /** ID of the list owner (files of the list are stored in the owner's directory). */
+    Long getOwnerId();
+
+    /** ID of the item image, or {@code null} if the item has no image. */
+    Long getImageId();
+
+    /** Stored file name of the item image, or {@code null} if the item has no image. */
+    String getStoredName();
+}
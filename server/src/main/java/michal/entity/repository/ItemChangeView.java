@@ -0,0 +1,34 @@
+package michal.entity.repository;
+
+/**
+ * Projection of an item returned by a conditional single-statement update.
+ */
+public interface ItemChangeView {
+
+    /** ID of the item. */
+    Long getId();
+
+    /** ID of the list the item belongs to. */
+    Long getListId();
+
+    /** Name of the item. */
+    String getName();
+
+    /** Quantity or count of the item. */
+    Float getCount();
+
+    /** Purchased flag of the item. */
+    Boolean getPurchased();
+
+    /** Sort key of the item within its list. */
+    Long getPosition();
+
+    /** ID of the item image, or {@code null} if the item has no image. */
+    Long getImageId();
+
+    /** New optimistic lock version of the item. */
+    Long getVersion();
+
+    /** New change version of the list (stored on the item). */
+    Long getChangeVersion();
+}
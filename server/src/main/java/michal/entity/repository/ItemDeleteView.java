@@ -0,0 +1,22 @@
+package michal.entity.repository;
+
+/**
+ * Projection of an item removed by a single-statement delete.
+ */
+public interface ItemDeleteView {
+
+    /** ID of the deleted item. */
+    Long getId();
+
+    /** New change version of the list (stored on the tombstone of the item). */
+    Long getChangeVersion();
+
+    /** ID of the list owner (files of the list are stored in the owner's directory). */
+    Long getOwnerId();
+
+    /** ID of the deleted image, or {@code null} if the item had no image. */
+    Long getImageId();
+
+    /** Stored file name of the deleted image, or {@code null} if the item had no image. */
+    String getStoredName();
+}
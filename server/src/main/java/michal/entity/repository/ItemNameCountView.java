@@ -0,0 +1,18 @@
+package michal.entity.repository;
+
+/**
+ * Read-only projection of an item name and how many times it occurs.
+ *
+ * <p>
+ * Used to build the item name suggestions of a user
+ * ({@link ItemsRepository#findItemNameCounts}).
+ * </p>
+ */
+public interface ItemNameCountView {
+
+    /** Name of the item exactly as it was entered. */
+    String getName();
+
+    /** Number of items with this name. */
+    long getUses();
+}
@@ -0,0 +1,30 @@
+package michal.entity.repository;
+
+/**
+ * Read-only projection of an item found by the cross-list search.
+ *
+ * <p>
+ * Instances are produced directly by {@link ItemsRepository#searchAccessibleItems},
+ * together with the name of the list the item belongs to.
+ * </p>
+ */
+public interface ItemSearchView {
+
+    /** Unique identifier of the item. */
+    Long getId();
+
+    /** Name of the item. */
+    String getName();
+
+    /** Quantity of the item. */
+    float getCount();
+
+    /** Whether the item is already purchased. */
+    boolean getPurchased();
+
+    /** ID of the list the item belongs to. */
+    Long getListId();
+
+    /** Name of the list the item belongs to. */
+    String getListName();
+}
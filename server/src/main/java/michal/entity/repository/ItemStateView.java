@@ -0,0 +1,14 @@
+package michal.entity.repository;
+
+/**
+ * Projection of the state of one item needed to apply batch operations
+ * and to compute the change of the list counters.
+ */
+public interface ItemStateView {
+
+    /** ID of the item. */
+    Long getId();
+
+    /** Current purchased flag of the item. */
+    Boolean getPurchased();
+}
@@ -0,0 +1,62 @@
+package michal.entity.repository;
+
+import michal.entity.ItemTombstoneEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for {@link ItemTombstoneEntity}.
+ *
+ * <p>
+ * Tombstones are written with set-based statements when items are deleted
+ * and read by the delta sync of items.
+ * </p>
+ */
+public interface ItemTombstoneRepository extends JpaRepository<ItemTombstoneEntity, Long> {
+
+    /**
+     * Records tombstones for items of a list that are about to be deleted.
+     *
+     * <p>
+     * Must be called before the items are deleted; only items that really belong to the list are recorded.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @param itemIds IDs of the items
+     * @param version change version of the list in which the items are deleted
+     * @return number of recorded tombstones
+     */
+    @Modifying
+    @Query(value = """
+    insert into item_tombstones (item_id, list_id, change_version, deleted_at)
+    select i.id, i.list_id, :version, now()
+    from items i
+    where i.list_id = :listId and i.id in :itemIds
+    """, nativeQuery = true)
+    int recordDeleted(Long listId, Collection<Long> itemIds, long version);
+
+    /**
+     * Returns the IDs of items of a list deleted after the given version.
+     *
+     * @param listId ID of the list
+     * @param since last version known to the client
+     * @return IDs of deleted items
+     */
+    @Query("select t.itemId from item_tombstones t where t.listId = :listId and t.changeVersion > :since")
+    List<Long> findDeletedItemIds(Long listId, long since);
+
+    /**
+     * Deletes tombstones older than the retention window.
+     *
+     * @param cutoff tombstones of items deleted before this time are removed
+     * @return number of removed tombstones
+     */
+    @Modifying
+    @Query("delete from item_tombstones t where t.deletedAt < :cutoff")
+    int deleteByDeletedAtBefore(LocalDateTime cutoff);
+}
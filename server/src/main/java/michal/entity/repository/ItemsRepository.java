@@ -1,7 +1,12 @@
 package michal.entity.repository;
 
 import michal.entity.ItemsEntity;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,17 +22,38 @@ import java.util.Optional;
 public interface ItemsRepository extends JpaRepository<ItemsEntity, Long> {
 
     /**
-     * Finds all items that belong to a specific list.
+     * Finds all items that belong to a specific list, in display order.
      *
      * <p>
      * Spring Data JPA automatically generates the query based on the method name.
-     * No custom query is required here.
+     * No custom query is required here. The order matches the index
+     * {@code idx_items_list_position}, so the items are read from it already sorted.
+     * </p>
+     *
+     * <p>
+     * The image of each item is fetched in the same statement. The image is the inverse side
+     * of a one-to-one relation, which Hibernate cannot load lazily, so without the fetch plan
+     * every item would trigger its own select.
      * </p>
      *
      * @param listId ID of the shopping list
      * @return list of items for the given list ID
      */
-    List<ItemsEntity> findByListId(Long listId);
+    @EntityGraph(attributePaths = {"image"})
+    List<ItemsEntity> findByListIdOrderByPositionAscIdAsc(Long listId);
+
+    /**
+     * Returns the highest sort key in a list (0 for an empty list).
+     *
+     * <p>
+     * Answered from the end of the index {@code idx_items_list_position}.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @return highest position of an item in the list
+     */
+    @Query("select coalesce(max(i.position), 0) from items i where i.list.id = :listId")
+    long findMaxPosition(Long listId);
 
     /**
      * Returns the total number of items in a given list.
@@ -38,21 +64,393 @@ public interface ItemsRepository extends JpaRepository<ItemsEntity, Long> {
     long countByListId(Long id);
 
     /**
-     * Finds an item only if it belongs to a list owned by the given user.
+     * Finds an item only if it belongs to the given list.
+     *
+     * <p>
+     * Access to the list itself is verified separately by {@code ListAccessService}.
+     * </p>
+     *
+     * @param itemId ID of the item
+     * @param listId ID of the list
+     * @return Optional containing the item if it belongs to the list, otherwise empty
+     */
+    Optional<ItemsEntity> findByIdAndListId(Long itemId, Long listId);
+
+    /**
+     * Returns the list, owner and image of an item in one query (used for access checks).
+     *
+     * @param itemId ID of the item
+     * @return access data of the item, or empty if the item does not exist
+     */
+    @Query("""
+    select i.id as itemId, l.id as listId, l.owner.id as ownerId,
+           im.id as imageId, im.storedName as storedName
+    from items i
+    join i.list l
+    left join i.image im
+    where i.id = :itemId
+    """)
+    Optional<ItemAccessView> findAccessById(Long itemId);
+
+    /**
+     * Returns the ID and purchased flag of the given items that belong to the list.
+     *
+     * <p>
+     * Used by batch operations to find out which items exist
+     * without loading whole entities.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @param itemIds IDs of the requested items
+     * @return state of the items that exist in the list
+     */
+    @Query("select i.id as id, i.purchased as purchased from items i where i.list.id = :listId and i.id in :itemIds")
+    List<ItemStateView> findStatesByListIdAndIdIn(Long listId, Collection<Long> itemIds);
+
+    /**
+     * Searches items by name across all lists a user can access (owned or shared).
+     *
+     * <p>
+     * An item matches when its name contains the text ({@code ilike}) or contains a word similar
+     * to it ({@code <%}, pg_trgm word similarity, which also tolerates typos). Both conditions
+     * are answered by the trigram GIN index {@code idx_items_name_trgm}; accessible lists are
+     * collected by the same two index range scans as the list overview.
+     * Results are ranked by word similarity, best match first.
+     * </p>
+     *
+     * @param userId ID of the user (owner or user the lists are shared with)
+     * @param query searched text
+     * @param pattern {@code ilike} pattern of the text (with escaped wildcards)
+     * @param limit maximum number of returned items
+     * @param offset number of ranked items to skip
+     * @return found items ordered by rank and item ID
+     */
+    @Query(value = """
+    select i.id as "id", i.name as "name", i.count as "count", i.purchased as "purchased",
+           l.id as "listId", l.name as "listName"
+    from items i
+    join lists l on l.id = i.list_id
+    where i.list_id in (
+            select o.id from lists o where o.owner_id = :userId
+            union all
+            select s.list_id from shared_lists s where s.user_id = :userId)
+      and (i.name ilike :pattern or :query <% i.name)
+    order by word_similarity(:query, i.name) desc, i.id
+    limit :limit offset :offset
+    """, nativeQuery = true)
+    List<ItemSearchView> searchAccessibleItems(Long userId, String query, String pattern, int limit, long offset);
+
+    /**
+     * Returns the most frequent item names in all lists a user can access (owned or shared).
+     *
+     * <p>
+     * Used to build the in-memory name suggestions of the user, which are then kept up to date
+     * without further queries.
+     * </p>
+     *
+     * @param userId ID of the user
+     * @param limit maximum number of returned names
+     * @return item names with their number of occurrences, most frequent first
+     */
+    @Query(value = """
+    select i.name as "name", count(*) as "uses"
+    from items i
+    where i.list_id in (
+            select o.id from lists o where o.owner_id = :userId
+            union all
+            select s.list_id from shared_lists s where s.user_id = :userId)
+      and i.name is not null
+    group by i.name
+    order by count(*) desc
+    limit :limit
+    """, nativeQuery = true)
+    List<ItemNameCountView> findItemNameCounts(Long userId, int limit);
+
+    /**
+     * Updates the fields of several items of a list in one statement without loading them.
+     *
+     * <p>
+     * The arrays describe one item per position; {@code null} values keep the current value
+     * of the field. Every changed item gets the new change version of the list and an incremented
+     * optimistic lock version, so edits based on the old state are rejected.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @param itemIds IDs of the items to change
+     * @param names new names (or {@code null} values), same order as the IDs
+     * @param counts new counts (or {@code null} values), same order as the IDs
+     * @param purchased new purchased flags (or {@code null} values), same order as the IDs
+     * @param version change version of the list stored on the changed items
+     * @return number of updated items
+     */
+    @Modifying
+    @Query(value = """
+    update items i
+    set name = coalesce(c.name, i.name),
+        count = coalesce(c.count, i.count),
+        purchased = coalesce(c.purchased, i.purchased),
+        change_version = :version,
+        version = i.version + 1
+    from unnest(cast(:itemIds as bigint[]), cast(:names as varchar[]),
+                cast(:counts as real[]), cast(:purchased as boolean[])) as c(id, name, count, purchased)
+    where i.list_id = :listId and i.id = c.id
+    """, nativeQuery = true)
+    int updateFields(Long listId, Long[] itemIds, String[] names, Float[] counts, Boolean[] purchased, long version);
+
+    /**
+     * Changes one item in a single statement if the user may write to its list
+     * and the item still has the expected version.
      *
      * <p>
+     * The statement checks access (owner or share) and the version, adjusts the purchased counter
+     * and change version of the list, and writes the item with an incremented version.
+     * The list row is locked before the item row, in the same order as the other item changes.
+     * {@code null} arguments keep the current value of the field.
+     * </p>
      *
-     * <ul>
-     *   <li>the item exists</li>
-     *   <li>the item belongs to the specified list</li>
-     *   <li>the list belongs to the authenticated user</li>
-     * </ul>
+     * <p>
+     * No row is returned if the item does not exist in the list, the user has no access,
+     * or the item was changed in the meantime (the version differs). If the item was changed
+     * by a transaction running at the same time, the list is already adjusted, so the caller
+     * must roll back when nothing is returned.
      * </p>
      *
+     * @param listId ID of the list
      * @param itemId ID of the item
+     * @param userId ID of the user making the change
+     * @param version version of the item the change is based on
+     * @param name new name, or {@code null}
+     * @param count new count, or {@code null}
+     * @param purchased new purchased flag, or {@code null}
+     * @return the changed item, or empty if nothing was changed
+     */
+    @Transactional
+    @Query(value = """
+    with target as (
+        select i.id, i.list_id, i.purchased as old_purchased,
+               coalesce(cast(:purchased as boolean), i.purchased) as new_purchased
+        from items i
+        join lists l on l.id = i.list_id
+        where i.id = :itemId and i.list_id = :listId and i.version = :version
+          and (l.owner_id = :userId
+               or exists (select 1 from shared_lists s where s.list_id = l.id and s.user_id = :userId))
+    ), changed_list as (
+        update lists l
+        set purchased_count = l.purchased_count + (cast(t.new_purchased as int) - cast(t.old_purchased as int)),
+            change_version = l.change_version + 1
+        from target t
+        where l.id = t.list_id
+        returning l.change_version
+    )
+    update items i
+    set name = coalesce(cast(:name as varchar), i.name),
+        count = coalesce(cast(:count as real), i.count),
+        purchased = t.new_purchased,
+        version = i.version + 1,
+        change_version = c.change_version
+    from target t, changed_list c
+    where i.id = t.id and i.version = :version
+    returning i.id as "id", i.list_id as "listId", i.name as "name", i.count as "count",
+              i.purchased as "purchased", i.position as "position",
+              i.version as "version", i.change_version as "changeVersion",
+              (select im.id from image im where im.item_id = i.id) as "imageId"
+    """, nativeQuery = true)
+    Optional<ItemChangeView> updateIfCurrent(Long listId, Long itemId, Long userId, long version,
+                                             String name, Float count, Boolean purchased);
+
+    /**
+     * Deletes one item and its image in a single statement if the user may write to its list.
+     *
+     * <p>
+     * The statement checks access (owner or share), decrements the counters and increments
+     * the change version of the list, records the tombstone for the delta sync, and deletes
+     * the image record and the item. The stored file name of the image is returned,
+     * so the file can be removed after commit.
+     * </p>
+     *
+     * <p>
+     * No row is returned if the item does not exist in the list or the user has no access.
+     * If the item was deleted by a transaction running at the same time, the list is already
+     * adjusted, so the caller must roll back when nothing is returned.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @param itemId ID of the item
+     * @param userId ID of the user deleting the item
+     * @return the deleted item, or empty if nothing was deleted
+     */
+    @Transactional
+    @Query(value = """
+    with target as (
+        select i.id, i.list_id, i.purchased, l.owner_id
+        from items i
+        join lists l on l.id = i.list_id
+        where i.id = :itemId and i.list_id = :listId
+          and (l.owner_id = :userId
+               or exists (select 1 from shared_lists s where s.list_id = l.id and s.user_id = :userId))
+    ), changed_list as (
+        update lists l
+        set items_count = l.items_count - 1,
+            purchased_count = l.purchased_count - (case when t.purchased then 1 else 0 end),
+            change_version = l.change_version + 1
+        from target t
+        where l.id = t.list_id
+        returning l.change_version
+    ), tombstone as (
+        insert into item_tombstones (item_id, list_id, change_version, deleted_at)
+        select t.id, t.list_id, c.change_version, now()
+        from target t, changed_list c
+    ), removed_image as (
+        delete from image im
+        using target t
+        where im.item_id = t.id
+        returning im.id, im.stored_name
+    ), removed_item as (
+        delete from items i
+        using target t
+        where i.id = t.id
+        returning i.id
+    )
+    select r.id as "id", c.change_version as "changeVersion", t.owner_id as "ownerId",
+           (select im.id from removed_image im) as "imageId",
+           (select im.stored_name from removed_image im) as "storedName"
+    from removed_item r, changed_list c, target t
+    """, nativeQuery = true)
+    Optional<ItemDeleteView> deleteAccessible(Long listId, Long itemId, Long userId);
+
+    /**
+     * Moves an item behind another item of the same list with a single-row update.
+     *
+     * <p>
+     * The new sort key lies halfway between the anchor item and the item following it
+     * ({@code step} behind the last item, or {@code step} before the first item when moving to the top).
+     * The statement also increments the change version of the list and stores it on the moved item.
+     * </p>
+     *
+     * <p>
+     * No row is returned if the item or the anchor does not exist in the list,
+     * or if there is no free key between the neighbours (the list has to be rebalanced first,
+     * see {@link #rebalancePositions}).
+     * </p>
+     *
+     * @param listId ID of the list
+     * @param itemId ID of the moved item
+     * @param afterId ID of the item the moved item is placed after, or {@code null} for the top of the list
+     * @param step gap between two neighbouring keys
+     * @return the moved item, or empty if nothing was moved
+     */
+    @Transactional
+    @Query(value = """
+    with anchor as (
+        select a.position, a.id
+        from items a
+        where a.id = cast(:afterId as bigint) and a.list_id = :listId and a.id <> :itemId
+    ), bounds as (
+        select (select position from anchor) as prev_position,
+               (select n.position
+                from items n
+                where n.list_id = :listId and n.id <> :itemId
+                  and (not exists (select 1 from anchor)
+                       or (n.position, n.id) > (select position, id from anchor))
+                order by n.position, n.id
+                limit 1) as next_position
+    ), target as (
+        select i.id, i.list_id,
+               case
+                   when b.prev_position is null and b.next_position is null then 0
+                   when b.prev_position is null then b.next_position - :step
+                   when b.next_position is null then b.prev_position + :step
+                   else (b.prev_position + b.next_position) / 2
+               end as new_position
+        from items i, bounds b
+        where i.id = :itemId and i.list_id = :listId
+          and (cast(:afterId as bigint) is null or b.prev_position is not null)
+          and (b.prev_position is null or b.next_position is null or b.next_position - b.prev_position >= 2)
+    ), changed_list as (
+        update lists l
+        set change_version = l.change_version + 1
+        from target t
+        where l.id = t.list_id
+        returning l.change_version
+    )
+    update items i
+    set position = t.new_position,
+        change_version = c.change_version
+    from target t, changed_list c
+    where i.id = t.id
+    returning i.id as "id", i.list_id as "listId", i.name as "name", i.count as "count",
+              i.purchased as "purchased", i.position as "position",
+              i.version as "version", i.change_version as "changeVersion",
+              (select im.id from image im where im.item_id = i.id) as "imageId"
+    """, nativeQuery = true)
+    Optional<ItemChangeView> moveAfter(Long listId, Long itemId, Long afterId, long step);
+
+    /**
+     * Rewrites the sort keys of all items of a list to evenly spaced values (1, 2, 3, ... times {@code step}).
+     *
+     * <p>
+     * Needed only when two neighbouring keys have no free value between them.
+     * The order of the items does not change. All items get the new change version of the list,
+     * so clients synchronizing by delta receive the new keys.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @param step gap between two neighbouring keys
+     * @return IDs of the rewritten items
+     */
+    @Transactional
+    @Query(value = """
+    with changed_list as (
+        update lists
+        set change_version = change_version + 1
+        where id = :listId
+        returning change_version
+    )
+    update items i
+    set position = r.rn * :step,
+        change_version = c.change_version
+    from (select id, row_number() over (order by position, id) as rn
+          from items
+          where list_id = :listId) r,
+         changed_list c
+    where i.id = r.id
+    returning i.id
+    """, nativeQuery = true)
+    List<Long> rebalancePositions(Long listId, long step);
+
+    /**
+     * Stores a new change version of the list on one item (e.g. after its image changed).
+     *
+     * @param itemId ID of the item
+     * @param version change version of the list
+     * @return number of updated items (0 or 1)
+     */
+    @Modifying
+    @Query("update items i set i.changeVersion = :version where i.id = :itemId")
+    int setChangeVersion(Long itemId, long version);
+
+    /**
+     * Finds the items of a list changed after the given version (used by the delta sync).
+     *
+     * @param listId ID of the list
+     * @param changeVersion last version known to the client
+     * @return items created or changed after the version
+     */
+    @EntityGraph(attributePaths = {"image"})
+    List<ItemsEntity> findByListIdAndChangeVersionGreaterThan(Long listId, long changeVersion);
+
+    /**
+     * Deletes several items of a list in one statement.
+     *
+     * <p>
+     * Images of the items must be deleted first (see {@code ImageRepository#deleteByItemIds}).
+     * </p>
+     *
      * @param listId ID of the list
-     * @param userId ID of the authenticated user
-     * @return Optional containing the item if access is allowed, otherwise empty
+     * @param itemIds IDs of the items to delete
+     * @return number of deleted items
      */
-    Optional<ItemsEntity> findByIdAndList_IdAndList_Owner_Id(Long itemId, Long listId, Long userId);
+    @Modifying
+    @Query("delete from items i where i.list.id = :listId and i.id in :itemIds")
+    int deleteByListIdAndIdIn(Long listId, Collection<Long> itemIds);
 }
\ No newline at end of file
@@ -1,11 +1,18 @@
 package michal.entity.repository;
 
 import michal.entity.ListEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for {@link ListEntity}.
@@ -20,19 +27,286 @@ import java.util.List;
 public interface ListRepository extends JpaRepository<ListEntity, Long> {
 
     /**
-     * Finds all lists owned by a specific user.
+     * Loads one page of the overview of lists accessible for a user in a single statement.
+     *
+     * <p>
+     * Item totals are read from the denormalized counters of the list,
+     * so the query touches only the lists table (and shared lists for access).
+     * Shared access is checked with {@code exists} instead of a join,
+     * which keeps the result free of duplicates.
+     * </p>
      *
-     * @param userId of the list owner
-     * @return list of {@link ListEntity} objects belonging to that user
+     * <p>
+     * Paging uses the list ID as a keyset: only lists with an ID greater than
+     * {@code afterId} are returned, so every page costs the same regardless of its position.
+     * </p>
+     *
+     * @param userId ID of the user (owner or user the list is shared with)
+     * @param afterId ID of the last list of the previous page (use 0 for the first page)
+     * @param limit maximum number of returned summaries
+     * @return list summaries ordered by list ID
      */
     @Query("""
-    select distinct l
+    select l.id as id, l.name as name, l.owner.id as ownerId,
+           l.itemsCount as itemsCount, l.purchasedCount as purchasedCount
     from lists l
-    left join SharedListEntity s on s.list.id = l.id
-    where l.owner.id = :userId or s.user.id = :userId
+    where l.id > :afterId
+      and (l.owner.id = :userId
+           or exists (select s.id from SharedListEntity s where s.list = l and s.user.id = :userId))
     order by l.id
     """)
-    List<ListEntity> findAllUserAccessibleLists(Long userId);
+    List<ListSummaryView> findUserAccessibleListSummaries(Long userId, Long afterId, Limit limit);
+
+    /**
+     * Loads one page of the list overview using the "owned UNION ALL shared" strategy.
+     *
+     * <p>
+     * Returns the same rows as {@link #findUserAccessibleListSummaries(Long, Long, Limit)},
+     * but the accessible list IDs are collected by two independent branches:
+     * lists owned by the user (index on {@code lists(owner_id, id)}) and lists reached
+     * through {@code shared_lists} (index on {@code shared_lists(user_id, list_id)}).
+     * Each branch is already limited to one page, so PostgreSQL can answer both
+     * with short index range scans and no {@code distinct} is needed.
+     * Lists shared with their own owner are skipped in the second branch to avoid duplicates.
+     * </p>
+     *
+     * @param userId ID of the user (owner or user the list is shared with)
+     * @param afterId ID of the last list of the previous page (use 0 for the first page)
+     * @param limit maximum number of returned summaries
+     * @return list summaries ordered by list ID
+     */
+    @Query(value = """
+    select l.id as "id", l.name as "name", l.owner_id as "ownerId",
+           l.items_count as "itemsCount", l.purchased_count as "purchasedCount"
+    from (
+        (select o.id
+         from lists o
+         where o.owner_id = :userId and o.id > :afterId
+         order by o.id
+         limit :limit)
+        union all
+        (select s.list_id
+         from shared_lists s
+         join lists sl on sl.id = s.list_id
+         where s.user_id = :userId and s.list_id > :afterId
+           and sl.owner_id is distinct from :userId
+         order by s.list_id
+         limit :limit)
+    ) accessible
+    join lists l on l.id = accessible.id
+    order by l.id
+    limit :limit
+    """, nativeQuery = true)
+    List<ListSummaryView> findUserAccessibleListSummariesUnion(Long userId, Long afterId, int limit);
+
+    /**
+     * Returns IDs of all lists a user can access, marked as owned or shared.
+     *
+     * <p>
+     * Used to build the in-memory access cache of {@code ListAccessService}.
+     * </p>
+     *
+     * @param userId ID of the user
+     * @return owned lists followed by lists shared with the user
+     */
+    @Query(value = """
+    select l.id as "listId", true as "owned"
+    from lists l
+    where l.owner_id = :userId
+    union all
+    select s.list_id as "listId", false as "owned"
+    from shared_lists s
+    where s.user_id = :userId
+    """, nativeQuery = true)
+    List<AccessibleListView> findAccessibleListIds(Long userId);
+
+    /**
+     * Loads a list together with its owner, items and item images in one statement.
+     *
+     * <p>
+     * Used when the whole list is returned to the client. The fetch plan replaces
+     * lazy loading of the items and one select per item image.
+     * </p>
+     *
+     * @param id ID of the list
+     * @return list with initialized items, or empty if it does not exist
+     */
+    @EntityGraph(attributePaths = {"owner", "items", "items.image"})
+    Optional<ListEntity> findWithItemsById(Long id);
+
+    /**
+     * Returns the change version of a list without loading the list itself.
+     *
+     * @param listId ID of the list
+     * @return change version, or empty if the list does not exist
+     */
+    @Query("select l.changeVersion from lists l where l.id = :listId")
+    Optional<Long> findChangeVersion(Long listId);
+
+    /**
+     * Returns the ID of the owner of a list without loading the list itself.
+     *
+     * @param listId ID of the list
+     * @return owner ID, or empty if the list does not exist
+     */
+    @Query("select l.owner.id from lists l where l.id = :listId")
+    Optional<Long> findOwnerId(Long listId);
+
+    /**
+     * Locks the row of a list until the end of the transaction.
+     *
+     * <p>
+     * Every change of items locks the row of their list first (through the counter update),
+     * so once this returns, no other transaction can change the items of the list and
+     * their state read afterwards stays valid until commit.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @return ID of the locked list, or empty if the list does not exist
+     */
+    @Query(value = "select id from lists where id = :listId for update", nativeQuery = true)
+    Optional<Long> lockById(Long listId);
+
+    /**
+     * Increments the change version of a list.
+     *
+     * <p>
+     * Used for changes that do not affect the item counters
+     * (e.g. renaming the list or replacing an item image).
+     * </p>
+     *
+     * <p>
+     * Declared without {@link Modifying}, because a modifying query returns only the row count
+     * and the new value would need a second statement. Spring Data runs it as a query instead
+     * ({@link Transactional} makes it read-write); Hibernate flushes pending changes before it,
+     * but does not clear the persistence context. This is safe: the counters and versions of
+     * {@link ListEntity} are not updatable through the entity, so a list loaded earlier in the
+     * transaction never writes its stale values back, and callers take the new values from
+     * the returned result (or from {@link #findChangeVersion}), never from a loaded entity.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @return new change version, or {@code null} if the list does not exist
+     */
+    @Transactional
+    @Query(value = "update lists set change_version = change_version + 1 where id = :listId returning change_version",
+            nativeQuery = true)
+    Long bumpChangeVersion(Long listId);
+
+    /**
+     * Atomically adjusts the denormalized item counters of a list.
+     *
+     * <p>
+     * The counters are changed relative to their current database value,
+     * so concurrent item changes in different transactions do not overwrite each other.
+     * Every item change goes through this method, so it also increments the change version
+     * of the list (even when both deltas are zero) and returns the new version, which the
+     * caller stores on the changed items (or their tombstones) for delta sync.
+     * </p>
+     *
+     * <p>
+     * Like {@link #bumpChangeVersion}, declared without {@link Modifying} so that it can return
+     * the new version in the same statement; see there why this is safe.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @param itemsDelta change of the number of items (e.g. 1 for an added item)
+     * @param purchasedDelta change of the number of purchased items
+     * @return new change version, or {@code null} if the list does not exist
+     */
+    @Transactional
+    @Query(value = """
+    update lists
+    set items_count = items_count + :itemsDelta,
+        purchased_count = purchased_count + :purchasedDelta,
+        change_version = change_version + 1
+    where id = :listId
+    returning change_version
+    """, nativeQuery = true)
+    Long adjustItemCounters(Long listId, long itemsDelta, long purchasedDelta);
+
+    /**
+     * Returns the change version and sync floor of a list (used by the delta sync of items).
+     *
+     * @param listId ID of the list
+     * @return sync state, or empty if the list does not exist
+     */
+    @Query("select l.changeVersion as changeVersion, l.syncFloorVersion as syncFloorVersion from lists l where l.id = :listId")
+    Optional<ListSyncView> findSyncState(Long listId);
+
+    /**
+     * Raises the sync floor of lists whose tombstones are about to be purged.
+     *
+     * <p>
+     * A client that last synchronized below the floor may have missed a deletion
+     * and therefore receives the full item collection instead of a delta.
+     * </p>
+     *
+     * @param cutoff tombstones of items deleted before this time will be purged
+     * @return number of lists whose floor was raised
+     */
+    @Modifying
+    @Query(value = """
+    update lists l
+    set sync_floor_version = t.max_version
+    from (
+        select list_id, max(change_version) as max_version
+        from item_tombstones
+        where deleted_at < :cutoff
+        group by list_id
+    ) t
+    where t.list_id = l.id
+      and l.sync_floor_version < t.max_version
+    """, nativeQuery = true)
+    int raiseSyncFloor(LocalDateTime cutoff);
+
+    /**
+     * Returns the IDs of lists whose stored item counters differ from the items table.
+     *
+     * <p>
+     * Nothing is locked, so the result is only a list of candidates: each of them is
+     * checked again under the list row lock by {@link #recalculateItemCounters(Long)}.
+     * </p>
+     *
+     * @return IDs of lists with wrong counters
+     */
+    @Query(value = """
+    select l.id
+    from lists l
+    left join items i on i.list_id = l.id
+    group by l.id
+    having l.items_count <> count(i.id)
+        or l.purchased_count <> count(i.id) filter (where i.purchased)
+    """, nativeQuery = true)
+    List<Long> findIdsWithWrongItemCounters();
 
-    boolean existsByIdAndOwnerId(Long listId, Long ownerId);
+    /**
+     * Recomputes the item counters of one list from the items table.
+     *
+     * <p>
+     * Must run after {@link #lockById(Long)} in the same transaction: item changes lock
+     * the list row first, so the counted items cannot change until commit.
+     * The list is written only if its counters differ; its change version is incremented,
+     * because the counters are part of the list payload.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @return 1 if the counters were repaired, 0 if they were correct
+     */
+    @Modifying
+    @Query(value = """
+    update lists l
+    set items_count = c.items_count,
+        purchased_count = c.purchased_count,
+        change_version = l.change_version + 1
+    from (
+        select count(i.id) as items_count,
+               count(i.id) filter (where i.purchased) as purchased_count
+        from items i
+        where i.list_id = :listId
+    ) c
+    where l.id = :listId
+      and (l.items_count <> c.items_count or l.purchased_count <> c.purchased_count)
+    """, nativeQuery = true)
+    int recalculateItemCounters(Long listId);
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package michal.entity.repository;
+
+/**
+ * Read-only projection of a shopping list used by the list overview.
+ *
+ * <p>
+ * Instances are produced directly by queries in {@link ListRepository},
+ * so the overview can be loaded without materializing list or item entities.
+ * </p>
+ */
+public interface ListSummaryView {
+
+    /** Unique identifier of the list. */
+    Long getId();
+
+    /** Name of the shopping list. */
+    String getName();
+
+    /** ID of the user who owns the list. */
+    Long getOwnerId();
+
+    /** Total number of items in the list. */
+    long getItemsCount();
+
+    /** Number of items already marked as purchased. */
+    long getPurchasedCount();
+}
@@ -0,0 +1,13 @@
+package michal.entity.repository;
+
+/**
+ * Projection of the versions of a list needed by the delta sync of items.
+ */
+public interface ListSyncView {
+
+    /** Current change version of the list. */
+    long getChangeVersion();
+
+    /** Oldest version from which a delta can still be computed. */
+    long getSyncFloorVersion();
+}
@@ -0,0 +1,21 @@
+package michal.service.Exception;
+
+/**
+ * Exception thrown when a change is based on an outdated state of a resource.
+ *
+ * <p>
+ * Typically used for optimistic locking: another user changed the item after the client
+ * loaded it, so the client has to reload it and apply its change again.
+ * </p>
+ */
+public class ConflictException extends RuntimeException {
+
+    /**
+     * Creates a new ConflictException with a custom message.
+     *
+     * @param message description of the conflict
+     */
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -1,11 +1,15 @@
 package michal.service.Exception;
 
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import michal.dto.ErrorResponse;
+import michal.entity.enumy.ValidationErrorCode;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -89,15 +93,19 @@ public class GlobalExceptionHandler {
      * <p>
      * Returns a 400 Bad Request response with a validation error code and message.
      * This allows the frontend to display a user-friendly message or map error codes.
+     * A too large image is answered with 413 Payload Too Large.
      * </p>
      *
      * @param ex thrown exception
-     * @return HTTP 400 response containing validation details
+     * @return HTTP 400 (or 413) response containing validation details
      */
     @ExceptionHandler(ValidationException.class)
     public ResponseEntity<?> handleValidation(ValidationException ex) {
+        HttpStatus status = ex.getCode() == ValidationErrorCode.IMAGE_TOO_LARGE
+                ? HttpStatus.PAYLOAD_TOO_LARGE
+                : HttpStatus.BAD_REQUEST;
         // Response example: { "code": "ITEM_NAME_EMPTY", "message": "..." }
-        return ResponseEntity.badRequest().body(
+        return ResponseEntity.status(status).body(
                 Map.of(
                         "code", ex.getCode().name(),
                         "message", ex.getMessage()
@@ -105,6 +113,22 @@ public class GlobalExceptionHandler {
         );
     }
 
+    /**
+     * Handles {@link MaxUploadSizeExceededException}.
+     *
+     * <p>
+     * Thrown when a multipart upload exceeds the limits of {@code spring.servlet.multipart}.
+     * The response is the same as for a too large image of the service.
+     * </p>
+     *
+     * @param ex thrown exception
+     * @return HTTP 413 response containing validation details
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<?> handleMaxUploadSize(MaxUploadSizeExceededException ex) {
+        return handleValidation(new ValidationException(ValidationErrorCode.IMAGE_TOO_LARGE));
+    }
+
     /**
      * Handles {@link ForbiddenException}.
      *
@@ -124,5 +148,41 @@ public class GlobalExceptionHandler {
                         ex.getMessage()));
     }
 
+    /**
+     * Handles {@link ConflictException} and optimistic lock failures of JPA.
+     *
+     * <p>
+     * Both mean that the change is based on an outdated version of an item
+     * (another user changed it first). The client should reload the item and retry.
+     * </p>
+     *
+     * @param ex thrown exception
+     * @return HTTP 409 response with an error message
+     */
+    @ExceptionHandler({ConflictException.class, ObjectOptimisticLockingFailureException.class})
+    public ResponseEntity<ErrorResponse> handleConflict(RuntimeException ex) {
+        String code = ex instanceof ConflictException ? ex.getMessage() : "ITEM_VERSION_CONFLICT";
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(new ErrorResponse("CONFLICT", code));
+    }
 
+    /**
+     * Handles {@link ServiceUnavailableException}.
+     *
+     * <p>
+     * The request may succeed when it is repeated (e.g. queued edits of the list are written by then),
+     * so the response tells the client when to retry.
+     * </p>
+     *
+     * @param ex thrown exception
+     * @return HTTP 503 response with the error code
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailable(ServiceUnavailableException ex) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse("UNAVAILABLE", ex.getMessage()));
+    }
 }
@@ -0,0 +1,22 @@
+package michal.service.Exception;
+
+/**
+ * Exception thrown when a request cannot be answered correctly right now, but may succeed later.
+ *
+ * <p>
+ * For example, a list whose queued edits could not be written yet is neither read
+ * nor changed directly, because the result would miss those edits.
+ * The client should retry the request after a short delay.
+ * </p>
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    /**
+     * Creates a new ServiceUnavailableException with a custom message.
+     *
+     * @param message error code describing why the request cannot be answered
+     */
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -50,6 +50,8 @@ public class ValidationException extends RuntimeException {
      * @param type image type related to the validation error (may be null)
      */
     public ValidationException(ValidationErrorCode code, ImageType type) {
+        // The message of the code is used as exception message (returned to the client).
+        super(code.getMessage());
         this.code = code;
         this.type = type;
     }
@@ -0,0 +1,39 @@
+package michal.service;
+
+import java.util.Collection;
+
+/**
+ * Service that removes stored files of deleted images in the background.
+ *
+ * <p>
+ * Files are queued only after the transaction that deleted their records commits,
+ * so a rolled back change never loses a file that is still referenced.
+ * The queue is processed in batches by a background thread, so deletes of items
+ * and images do not wait for the file system.
+ * </p>
+ *
+ * <p>
+ * A stored file may be shared by several images, so a queued file is deleted only
+ * when no image references it any more.
+ * </p>
+ */
+public interface FileCleanupService {
+
+    /**
+     * Queues stored files for deletion once the current transaction commits
+     * (immediately when no transaction is active).
+     *
+     * @param userId ID of the user whose directory contains the files
+     * @param storedNames internal stored file names
+     */
+    void deleteAfterCommit(Long userId, Collection<String> storedNames);
+
+    /**
+     * Queues stored files for deletion without waiting for a commit, e.g. a file published
+     * by an upload that failed. Files still referenced by an image are kept.
+     *
+     * @param userId ID of the user whose directory contains the files
+     * @param storedNames internal stored file names
+     */
+    void deleteIfUnreferenced(Long userId, Collection<String> storedNames);
+}
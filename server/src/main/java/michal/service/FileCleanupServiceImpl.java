@@ -0,0 +1,176 @@
+package michal.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import michal.entity.repository.ImageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FileCleanupService} implementation with one background thread.
+ *
+ * <p>
+ * Committed deletions are collected in a queue and processed every
+ * {@code app.storage.cleanup-delay-millis} in one pass. Files that are still
+ * queued when the application stops are processed during shutdown.
+ * </p>
+ *
+ * <p>
+ * Stored files can be shared by several images (content-addressed storage), so a file
+ * is deleted only when no image references it any more. The reference count is read
+ * under the lock of the file ({@link ImageRepository#lockStoredFile}), which uploads
+ * take as well before they publish a file. A deleted file takes its thumbnails with it.
+ * </p>
+ */
+@Service
+public class FileCleanupServiceImpl implements FileCleanupService {
+
+    private static final Logger log = LoggerFactory.getLogger(FileCleanupServiceImpl.class);
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private ImageThumbnailService imageThumbnailService;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** Delay between two passes over the queue. */
+    @Value("${app.storage.cleanup-delay-millis:500}")
+    private long cleanupDelayMillis;
+
+    /** Files waiting for deletion. */
+    private final Queue<StoredFile> queue = new ConcurrentLinkedQueue<>();
+
+    private ScheduledExecutorService cleaner;
+
+    @PostConstruct
+    void start() {
+        cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "file-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleaner.scheduleWithFixedDelay(this::deleteQueued, cleanupDelayMillis, cleanupDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // Process what is still queued before the application stops.
+        cleaner.shutdown();
+        cleaner.awaitTermination(10, TimeUnit.SECONDS);
+        deleteQueued();
+    }
+
+    /**
+     * Queues stored files for deletion after commit.
+     *
+     * @param userId ID of the user whose directory contains the files
+     * @param storedNames internal stored file names
+     */
+    @Override
+    public void deleteAfterCommit(Long userId, Collection<String> storedNames) {
+        if (userId == null || storedNames == null || storedNames.isEmpty()) {
+            return;
+        }
+        List<StoredFile> files = storedNames.stream()
+                .map(name -> new StoredFile(userId, name))
+                .toList();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    queue.addAll(files);
+                }
+            });
+        } else {
+            queue.addAll(files);
+        }
+    }
+
+    /**
+     * Queues stored files for deletion right away.
+     *
+     * @param userId ID of the user whose directory contains the files
+     * @param storedNames internal stored file names
+     */
+    @Override
+    public void deleteIfUnreferenced(Long userId, Collection<String> storedNames) {
+        if (userId == null || storedNames == null) {
+            return;
+        }
+        storedNames.forEach(name -> queue.add(new StoredFile(userId, name)));
+    }
+
+    /** Deletes all queued files that are no longer referenced (one pass of the background thread). */
+    void deleteQueued() {
+        // The same shared file may be queued by several deletes; it is checked once.
+        Set<StoredFile> batch = new LinkedHashSet<>();
+        for (StoredFile file = queue.poll(); file != null; file = queue.poll()) {
+            batch.add(file);
+        }
+        if (batch.isEmpty()) return;
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int deleted = 0;
+        int failed = 0;
+        for (StoredFile file : batch) {
+            try {
+                Boolean removed = transaction.execute(status -> delete(file));
+                if (Boolean.TRUE.equals(removed)) deleted++;
+            } catch (RuntimeException e) {
+                // The file stays on disk as an orphan; it is not referenced any more.
+                log.warn("Stored file {} of user {} was not deleted", file.storedName(), file.userId(), e);
+                failed++;
+            }
+        }
+        log.debug("{} of {} queued stored files were deleted ({} failed)", deleted, batch.size(), failed);
+    }
+
+    /**
+     * Deletes a file and its thumbnails unless an image still references it.
+     * Runs in a transaction, so the lock of the file is held until the files are gone.
+     *
+     * @param file queued file
+     * @return true if the file was deleted, false if it is still referenced
+     */
+    private boolean delete(StoredFile file) {
+        imageRepository.lockStoredFile(file.userId(), file.storedName());
+        if (imageRepository.countReferences(file.userId(), file.storedName()) > 0) {
+            return false;
+        }
+        List<String> names = new ArrayList<>();
+        names.add(file.storedName());
+        names.addAll(imageThumbnailService.variantNames(file.storedName()));
+        for (String name : names) {
+            storageService.deleteStoredFile(file.userId(), name);
+        }
+        return true;
+    }
+
+    /** File of a user waiting for deletion. */
+    private record StoredFile(Long userId, String storedName) {
+    }
+}
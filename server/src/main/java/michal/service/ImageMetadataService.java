@@ -0,0 +1,40 @@
+package michal.service;
+
+import michal.entity.repository.ImageAccessView;
+
+import java.util.Optional;
+
+/**
+ * Service providing the metadata needed to authorize and serve an image
+ * (list, owner, stored file, content type and thumbnails).
+ *
+ * <p>
+ * Image rows never change after the upload (except for the thumbnails recorded once),
+ * so their metadata is kept in memory and a warm image request needs no database query.
+ * Callers that delete images or change their thumbnails must invalidate them.
+ * </p>
+ */
+public interface ImageMetadataService {
+
+    /**
+     * Returns the metadata of an image, loading it when it is not cached.
+     *
+     * @param imageId ID of the image
+     * @return metadata of the image, or empty if the image does not exist
+     */
+    Optional<ImageAccessView> find(Long imageId);
+
+    /**
+     * Removes an image from the cache, now and once more after the current transaction commits.
+     *
+     * @param imageId ID of the changed or deleted image (null is ignored)
+     */
+    void invalidate(Long imageId);
+
+    /**
+     * Removes all images of a list from the cache, now and once more after the current transaction commits.
+     *
+     * @param listId ID of the list whose images were deleted
+     */
+    void invalidateList(Long listId);
+}
@@ -0,0 +1,177 @@
+package michal.service;
+
+import michal.entity.enumy.ImageType;
+import michal.entity.repository.ImageAccessView;
+import michal.entity.repository.ImageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cached implementation of {@link ImageMetadataService}.
+ *
+ * <p>
+ * Metadata of recently served images is kept as small immutable records keyed by image ID.
+ * The cache is bounded (least recently used images are evicted), entries expire after
+ * a configurable time and are invalidated when images are replaced or deleted.
+ * Access is still checked on every request by {@link ListAccessService}, which has its own cache.
+ * </p>
+ */
+@Service
+public class ImageMetadataServiceImpl implements ImageMetadataService {
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    /** Maximum number of images kept in the cache. */
+    @Value("${app.storage.metadata-cache-size:20000}")
+    private int cacheSize;
+
+    /** Time after which cached metadata is reloaded. */
+    @Value("${app.storage.metadata-cache-ttl-seconds:600}")
+    private long cacheTtlSeconds;
+
+    /** Cached metadata per image ID, ordered by last access (LRU). */
+    private final Map<Long, ImageMetadata> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, ImageMetadata> eldest) {
+                    return size() > cacheSize;
+                }
+            });
+
+    /**
+     * Incremented on every invalidation. A load that overlaps an invalidation
+     * is not stored, because it may have read the state before the change.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Returns cached metadata of the image, loading it when missing or expired.
+     *
+     * @param imageId ID of the image
+     * @return metadata of the image, or empty if it does not exist
+     */
+    @Override
+    public Optional<ImageAccessView> find(Long imageId) {
+        ImageMetadata cached = cache.get(imageId);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt() < cacheTtlSeconds * 1000) {
+            return Optional.of(cached);
+        }
+
+        long stamp = invalidations.get();
+        Optional<ImageMetadata> loaded = imageRepository.findAccessById(imageId).map(ImageMetadataServiceImpl::copyOf);
+        // Missing images are not cached; their IDs are never reused.
+        if (loaded.isPresent() && invalidations.get() == stamp) {
+            cache.put(imageId, loaded.get());
+        }
+        return loaded.map(ImageAccessView.class::cast);
+    }
+
+    @Override
+    public void invalidate(Long imageId) {
+        if (imageId == null) {
+            return;
+        }
+        afterCommitToo(() -> cache.remove(imageId));
+    }
+
+    @Override
+    public void invalidateList(Long listId) {
+        if (listId == null) {
+            return;
+        }
+        afterCommitToo(() -> {
+            synchronized (cache) {
+                cache.values().removeIf(image -> listId.equals(image.listId()));
+            }
+        });
+    }
+
+    /**
+     * Runs an eviction now and once more after commit, so a reload during the
+     * transaction cannot keep the state from before the change.
+     */
+    private void afterCommitToo(Runnable eviction) {
+        evict(eviction);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(eviction);
+                }
+            });
+        }
+    }
+
+    private void evict(Runnable eviction) {
+        invalidations.incrementAndGet();
+        eviction.run();
+    }
+
+    /** Copies a query projection (a proxy over the result row) into a compact record. */
+    private static ImageMetadata copyOf(ImageAccessView view) {
+        return new ImageMetadata(view.getImageId(), view.getListId(), view.getOwnerId(), view.getStoredName(),
+                view.getContentType(), view.getSize(), view.getVariants(), System.currentTimeMillis());
+    }
+
+    /**
+     * Immutable metadata of one image.
+     *
+     * @param imageId ID of the image
+     * @param listId ID of the list of the image's item
+     * @param ownerId ID of the list owner (files are stored in the owner's directory)
+     * @param storedName internal stored file name
+     * @param contentType type of the image
+     * @param size size of the original file in bytes, or null if it was not recorded
+     * @param variants sizes of the ready thumbnails, or null while they are generated
+     * @param loadedAt time of loading in milliseconds
+     */
+    private record ImageMetadata(Long imageId, Long listId, Long ownerId, String storedName,
+                                 ImageType contentType, Long size, String variants,
+                                 long loadedAt) implements ImageAccessView {
+
+        @Override
+        public Long getImageId() {
+            return imageId;
+        }
+
+        @Override
+        public Long getListId() {
+            return listId;
+        }
+
+        @Override
+        public Long getOwnerId() {
+            return ownerId;
+        }
+
+        @Override
+        public String getStoredName() {
+            return storedName;
+        }
+
+        @Override
+        public ImageType getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public Long getSize() {
+            return size;
+        }
+
+        @Override
+        public String getVariants() {
+            return variants;
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package michal.service;
 
 import michal.entity.UserEntity;
-import org.springframework.core.io.Resource;
+import michal.dto.ImageFileDTO;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.util.Collection;
+
 /**
  * Service interface for working with item images.
  *
@@ -27,25 +30,22 @@ public interface ImageService {
      * has permission to access the image.
      * </p>
      *
-     * @param imageId ID of the image
-     * @param user authenticated user
-     * @return image resource that can be returned to the client
-     */
-    Resource loadImage(Long imageId, UserEntity user);
-
-    /**
-     * Returns the MIME content type of an image.
+     * <p>
+     * When a size is given, a thumbnail of at least that size is returned if it is
+     * ready, otherwise the original.
+     * </p>
      *
      * <p>
-     * This value is typically used to set the
-     * {@code Content-Type} HTTP header when returning the image.
+     * The result carries everything needed for the response (file, content type and
+     * stored name for the ETag), so the image is looked up only once per request.
      * </p>
      *
      * @param imageId ID of the image
+     * @param size requested size in pixels (longer side), or null for the original
      * @param user authenticated user
-     * @return image content type (e.g. "image/png")
+     * @return image file that can be returned to the client
      */
-    String getImageContentType(Long imageId, UserEntity user);
+    ImageFileDTO loadImage(Long imageId, Integer size, UserEntity user);
 
     /**
      * Uploads or updates an image for a specific item.
@@ -70,6 +70,23 @@ public interface ImageService {
      */
     void updateItemImage(Long itemId, MultipartFile file, UserEntity user);
 
+    /**
+     * Uploads or updates an image for a specific item from a raw request body.
+     *
+     * <p>
+     * A declared length over the limit is rejected before the content is read.
+     * The image type is detected from the first bytes of the content, and the content
+     * is streamed into the storage in one pass while its size is counted.
+     * </p>
+     *
+     * @param itemId ID of the item
+     * @param content image content
+     * @param contentLength declared length of the content, or -1 when unknown
+     * @param originalName file name sent by the client (may be null)
+     * @param user authenticated user
+     */
+    void updateItemImage(Long itemId, InputStream content, long contentLength, String originalName, UserEntity user);
+
     /**
      * Deletes an image associated with an item.
      *
@@ -82,4 +99,18 @@ public interface ImageService {
      * @param user authenticated user
      */
     void deleteItemImage(Long itemId, UserEntity user);
+
+    /**
+     * Deletes the images of several items of one list.
+     *
+     * <p>
+     * Used by batch operations before the items themselves are deleted.
+     * The caller is responsible for the access check. Database records are removed
+     * immediately, stored files only after the transaction commits.
+     * </p>
+     *
+     * @param listId ID of the list the items belong to
+     * @param itemIds IDs of the items
+     */
+    void deleteItemImages(Long listId, Collection<Long> itemIds);
 }
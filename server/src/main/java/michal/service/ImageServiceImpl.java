@@ -1,24 +1,36 @@
 package michal.service;
 
+import michal.dto.ImageFileDTO;
+import michal.dto.ListChangeEventDTO;
 import michal.dto.mapper.ItemsImageMapper;
 import michal.entity.ItemsImageEntity;
-import michal.entity.ItemsEntity;
 import michal.entity.UserEntity;
 import michal.entity.enumy.ImageType;
 import michal.entity.enumy.ValidationErrorCode;
+import michal.entity.repository.ImageAccessView;
 import michal.entity.repository.ImageRepository;
+import michal.entity.repository.ItemAccessView;
 import michal.entity.repository.ItemsRepository;
-import michal.service.Exception.ForbiddenException;
+import michal.entity.repository.ListRepository;
 import michal.service.Exception.ValidationException;
+import michal.service.StorageService.StagedFile;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -36,6 +48,31 @@ public class ImageServiceImpl implements ImageService{
     @Autowired
     private ItemsImageMapper itemsImageMapper;
 
+    @Autowired
+    private ListAccessService listAccessService;
+
+    @Autowired
+    private ListRepository listRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private FileCleanupService fileCleanupService;
+
+    @Autowired
+    private ImageThumbnailService imageThumbnailService;
+
+    @Autowired
+    private ImageMetadataService imageMetadataService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** Stores uploads under the hash of their content, so repeated images share one file. */
+    @Value("${app.storage.content-addressed:true}")
+    private boolean contentAddressed;
+
     /** Maximum allowed uploaded file size (5 MB). */
     private static final long MAX_SIZE_BYTES = 5L * 1024 * 1024; // 5MB
 
@@ -46,12 +83,8 @@ public class ImageServiceImpl implements ImageService{
      * This method performs:
      * <ul>
      *   <li>basic file checks (null/empty)</li>
-     *   <li>ownership (authorization) check</li>
-     *   <li>file size validation</li>
-     *   <li>content type validation using {@link ImageType}</li>
-     *   <li>storing file in storage</li>
-     *   <li>creating and saving {@link ItemsImageEntity}</li>
-     *   <li>cleanup of the old image (database + storage)</li>
+     *   <li>storing the image the same way as a raw upload
+     *       ({@link #updateItemImage(Long, InputStream, long, String, UserEntity)})</li>
      * </ul>
      * </p>
      *
@@ -60,7 +93,6 @@ public class ImageServiceImpl implements ImageService{
      * @param userEntity authenticated user
      */
     @Override
-    @Transactional
     public void updateItemImage(Long itemId, MultipartFile file, UserEntity userEntity) {
 
         // The image is optional: if no file is provided, do nothing.
@@ -68,101 +100,217 @@ public class ImageServiceImpl implements ImageService{
             return;
         }
 
-        // Load item from DB (or fail if it does not exist).
-        ItemsEntity item = itemsRepository.findById(itemId)
-                .orElseThrow(() -> new RuntimeException("ITEM_NOT_FOUND"));
-
-        // Ownership check: only list owner can modify the item image.
-        if(!item.getList().getOwner().getId().equals(userEntity.getId())){
-            throw new ForbiddenException("ITEM_NOT_OWNED");
+        try (InputStream in = file.getInputStream()) {
+            storeImage(itemId, in, file.getSize(), file.getOriginalFilename(), userEntity);
+        } catch (IOException e) {
+            throw new RuntimeException("IMAGE_SAVE_FAILED", e);
         }
+    }
+
+    /**
+     * Uploads or replaces an image for a given item from a raw request body.
+     *
+     * <p>
+     * The body is not buffered: it is streamed from the request into the storage.
+     * No transaction is open while the body is read (see {@link #storeImage}).
+     * </p>
+     *
+     * @param itemId ID of the item
+     * @param content image content
+     * @param contentLength declared length of the content, or -1 when unknown
+     * @param originalName file name sent by the client (may be null)
+     * @param userEntity authenticated user
+     */
+    @Override
+    public void updateItemImage(Long itemId, InputStream content, long contentLength, String originalName,
+                                UserEntity userEntity) {
+        storeImage(itemId, content, contentLength, originalName, userEntity);
+    }
+
+    /**
+     * Stores an image and connects it to the item.
+     *
+     * <p>
+     * This method performs:
+     * <ul>
+     *   <li>size validation of the declared length (before anything is read)</li>
+     *   <li>access (authorization) check in a short read</li>
+     *   <li>image type detection from the first bytes using {@link ImageType#fromSignature}</li>
+     *   <li>streaming the content into storage in one pass, while the size is counted and limited</li>
+     *   <li>publishing the file and saving the metadata in a short transaction ({@link #persistImage})</li>
+     * </ul>
+     * </p>
+     *
+     * <p>
+     * The content is streamed with no transaction open, so a slow client does not hold
+     * a database connection for the whole upload.
+     * </p>
+     *
+     * @param itemId ID of the item
+     * @param content image content
+     * @param declaredLength declared length of the content, or -1 when unknown
+     * @param originalName file name sent by the client (may be null)
+     * @param userEntity authenticated user
+     */
+    private void storeImage(Long itemId, InputStream content, long declaredLength, String originalName,
+                            UserEntity userEntity) {
 
-        // File size validation.
-        if (file.getSize() > MAX_SIZE_BYTES) {
+        // File size validation: a declared length over the limit is rejected without reading the content.
+        if (declaredLength > MAX_SIZE_BYTES) {
             throw new ValidationException(ValidationErrorCode.IMAGE_TOO_LARGE);
         }
 
-        // Convert content type (e.g. "image/png") to enum ImageType.
-        String contentType = file.getContentType();
-        ImageType imageType = ImageType.fromContentType(contentType)
-                .orElseThrow(() -> new ValidationException(
-                        ValidationErrorCode.IMAGE_TYPE_NOT_ALLOWED
-                ));
-
-        // Save old image details for cleanup (DB record + stored file).
-        ItemsImageEntity old = item.getImage(); // this might be null if item has no image yet
-        Long oldId = old != null ? old.getId() : null;
-        String oldStoredName = old != null ? old.getStoredName() : null;
+        // Load list and owner of the item in one short query (or fail if it does not exist).
+        ItemAccessView item = itemsRepository.findAccessById(itemId)
+                .orElseThrow(() -> new RuntimeException("ITEM_NOT_FOUND"));
 
+        // Access check: only users with write access to the list can modify the item image.
+        listAccessService.checkWrite(item.getListId(), userEntity);
 
-        // Generate a new internal storage filename (random UUID + extension).
-        String newStoredName = UUID.randomUUID() + imageType.getExtension();
+        // Files are kept in the directory of the list owner, so every user
+        // with access to the list resolves the same location.
+        Long storageUserId = item.getOwnerId();
 
-        // Store the uploaded file into storage (file system / cloud / etc.).
-        try (InputStream in = file.getInputStream()) {
-            storageService.save(userEntity.getId(), newStoredName, in);
+        // Store the content into storage (file system / cloud / etc.).
+        // A missing or wrong length is caught while streaming: reading past the limit fails.
+        SizeLimitedInputStream limited = new SizeLimitedInputStream(content, MAX_SIZE_BYTES);
+        ImageType imageType;
+        StagedFile staged = null;
+        String newStoredName;
+        try {
+            // The type is detected from the content (not from the content type sent by the client).
+            // The bytes read for it are pushed back, so the content is still read only once.
+            PushbackInputStream in = new PushbackInputStream(limited, ImageType.SIGNATURE_LENGTH);
+            byte[] header = in.readNBytes(ImageType.SIGNATURE_LENGTH);
+            imageType = ImageType.fromSignature(header, header.length)
+                    .orElseThrow(() -> new ValidationException(
+                            ValidationErrorCode.IMAGE_TYPE_NOT_ALLOWED
+                    ));
+            in.unread(header);
+
+            if (contentAddressed) {
+                // Named by the hash of the content: a file with the same content is stored only once.
+                // It becomes visible under that name only when it is published below.
+                staged = storageService.stageContentAddressed(storageUserId, in, imageType.getExtension());
+                newStoredName = staged.getStoredName();
+            } else {
+                // Generate a new internal storage filename (random UUID + extension).
+                newStoredName = UUID.randomUUID() + imageType.getExtension();
+                storageService.save(storageUserId, newStoredName, in);
+            }
         } catch (IOException e) {
             throw new RuntimeException("IMAGE_SAVE_FAILED", e);
         }
 
+        StagedFile stagedFile = staged;
+        long size = limited.getCount();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> persistImage(
+                    itemId, stagedFile, storageUserId, newStoredName, originalName, size, imageType));
+        } catch (RuntimeException e) {
+            // If DB operation fails, the new file is already stored -> clean it up to avoid orphan files
+            // (kept if other images share it; checked after the transaction rolled back).
+            if (stagedFile != null) {
+                stagedFile.discard();
+            }
+            fileCleanupService.deleteIfUnreferenced(storageUserId, List.of(newStoredName));
+            throw e;
+        }
+    }
+
+    /**
+     * Publishes a stored image and replaces the image record of the item (runs in one short transaction).
+     *
+     * @param itemId ID of the item
+     * @param staged staged content-addressed file, or null when the file is already in place
+     * @param storageUserId ID of the user whose directory contains the file
+     * @param newStoredName internal stored file name of the new image
+     * @param originalName file name sent by the client (may be null)
+     * @param size number of stored bytes
+     * @param imageType image type detected from the content
+     */
+    private void persistImage(Long itemId, StagedFile staged, Long storageUserId, String newStoredName,
+                              String originalName, long size, ImageType imageType) {
+        if (staged != null) {
+            // The name is locked before the file is published, so the cleanup cannot delete it meanwhile.
+            imageRepository.lockStoredFile(storageUserId, newStoredName);
+            staged.publish();
+        }
+
+        // Current image of the item (another upload may have replaced it while this one was streamed).
+        ItemAccessView item = itemsRepository.findAccessById(itemId)
+                .orElseThrow(() -> new RuntimeException("ITEM_NOT_FOUND"));
+        Long oldId = item.getImageId();
+        String oldStoredName = item.getStoredName();
+
         // Create new image entity (metadata) and connect it to the item.
-        ItemsImageEntity newImage = itemsImageMapper.fromUpload(file, imageType);
+        ItemsImageEntity newImage = itemsImageMapper.fromUpload(originalName, size, imageType);
         newImage.setStoredName(newStoredName);
-        newImage.setItem(item);
+        // A reused file keeps the thumbnails generated for it before; a type without thumbnails has none to wait for.
+        if (!imageThumbnailService.supports(imageType)) {
+            newImage.setVariants("");
+        } else if (contentAddressed) {
+            imageRepository.findVariants(storageUserId, newStoredName).ifPresent(newImage::setVariants);
+        }
+        // The item is referenced without loading it.
+        newImage.setItem(itemsRepository.getReferenceById(itemId));
         newImage.setCreatedAt(LocalDate.now());
 
-        try {
-            // Persist the new image entity.
-            ItemsImageEntity savedImage = imageRepository.save(newImage);
-
-            // Link the saved image to the item (item is managed in current transaction).
-            item.setImage(savedImage);
-
-            // Cleanup old image: remove DB record and also delete stored file.
-            if (oldId != null) {
-                imageRepository.deleteById(oldId);
-                if (oldStoredName != null) {
-                    storageService.deleteStoredFile(userEntity.getId(), oldStoredName);
-                }
+        // Cleanup old image: remove DB record first (one image per item), the stored file after commit.
+        if (oldId != null) {
+            imageRepository.deleteByItemIds(List.of(itemId));
+            imageMetadataService.invalidate(oldId);
+            if (oldStoredName != null) {
+                fileCleanupService.deleteAfterCommit(storageUserId, List.of(oldStoredName));
             }
+        }
 
-        } catch (RuntimeException e) {
-            // If DB operation fails, the new file is already stored -> clean it up to avoid orphan files.
-            storageService.deleteStoredFile(userEntity.getId(), newStoredName);
-            throw e;
+        // Persist the new image entity.
+        imageRepository.saveAndFlush(newImage);
+        // Smaller copies for list screens are generated in the background once the upload commits.
+        if (newImage.getVariants() == null) {
+            imageThumbnailService.generateAfterCommit(newImage.getId(), storageUserId, newStoredName, imageType);
         }
 
+        // The item changed for the delta sync and the subscribers of the list.
+        long version = listRepository.bumpChangeVersion(item.getListId());
+        itemsRepository.setChangeVersion(itemId, version);
+        eventPublisher.publishEvent(ListChangeEventDTO.items(item.getListId(), version, List.of(itemId), List.of()));
     }
 
     /**
      * Loads an image as a Spring {@link Resource} for sending to the client.
      *
-     * @param imageId ID of the image
-     * @param user authenticated user (used for access check)
-     * @return image resource loaded from storage
-     */
-    @Override
-    @Transactional(readOnly = true)
-    public Resource loadImage(Long imageId, UserEntity user) {
-        ItemsImageEntity image = getOwnedImage(imageId, user);
-        return storageService.loadAsResource(
-                user.getId(),
-                image.getStoredName()
-        );
-    }
-
-    /**
-     * Returns the MIME content type of the requested image.
+     * <p>
+     * With a requested size, the smallest ready thumbnail of at least that size is loaded;
+     * the original is used until the thumbnails are generated. Thumbnails that were never
+     * recorded are queued again by the request.
+     * </p>
+     *
+     * <p>
+     * Stored files never change, so the result is immutable unless a thumbnail was requested
+     * that is not generated yet (then the original is sent until it is ready).
+     * </p>
      *
      * @param imageId ID of the image
+     * @param size requested size in pixels (longer side), or null for the original
      * @param user authenticated user (used for access check)
-     * @return MIME type string (e.g. "image/png")
+     * @return image file loaded from storage with its content type
      */
     @Override
-    @Transactional(readOnly = true)
-    public String getImageContentType(Long imageId, UserEntity user) {
-        ItemsImageEntity image = getOwnedImage(imageId, user);
-        return image.getContentType().getContentType(); // nebo image.getContentType()
+    public ImageFileDTO loadImage(Long imageId, Integer size, UserEntity user) {
+        ImageAccessView image = getReadableImage(imageId, user);
+        String storedName = imageThumbnailService.resolve(image.getStoredName(), image.getVariants(), size);
+        Resource resource = storageService.loadAsResource(image.getOwnerId(), storedName);
+        boolean immutable = size == null || image.getVariants() != null;
+        if (!immutable) {
+            // No thumbnails were recorded (queue full or failed generation), so they are produced now.
+            imageThumbnailService.generateMissing(image.getImageId(), image.getOwnerId(), image.getStoredName(),
+                    image.getContentType());
+        }
+        // Only the length of the original is recorded; a thumbnail's length is taken from its file.
+        Long fileSize = storedName.equals(image.getStoredName()) ? image.getSize() : null;
+        return new ImageFileDTO(resource, image.getContentType().getContentType(), storedName, fileSize, immutable);
     }
 
     /**
@@ -171,10 +319,10 @@ public class ImageServiceImpl implements ImageService{
      * <p>
      * This method performs:
      * <ul>
-     *   <li>item lookup</li>
-     *   <li>ownership check</li>
-     *   <li>unlink image from item</li>
-     *   <li>delete stored file</li>
+     *   <li>item lookup (list, owner and image in one query)</li>
+     *   <li>access check</li>
+     *   <li>delete the image record</li>
+     *   <li>delete stored file (in the background after commit)</li>
      * </ul>
      * </p>
      *
@@ -184,48 +332,122 @@ public class ImageServiceImpl implements ImageService{
     @Override
     @Transactional
     public void deleteItemImage(Long itemId, UserEntity user) {
-        ItemsEntity item = itemsRepository.findById(itemId)
+        ItemAccessView item = itemsRepository.findAccessById(itemId)
                 .orElseThrow(() -> new RuntimeException("ITEM_NOT_FOUND"));
 
-        // Only list owner is allowed to delete the image.
-        if (!item.getList().getOwner().getId().equals(user.getId())) {
-            throw new ForbiddenException("ITEM_NOT_OWNED");
-        }
+        // Only users with write access to the list are allowed to delete the image.
+        listAccessService.checkWrite(item.getListId(), user);
         // If item has no image, there is nothing to delete.
-        ItemsImageEntity image = item.getImage();
-        if (image == null) return;
+        if (item.getImageId() == null) return;
+
+        // DB: remove the image record with one statement.
+        imageRepository.deleteByItemIds(List.of(itemId));
+        imageMetadataService.invalidate(item.getImageId());
+        long version = listRepository.bumpChangeVersion(item.getListId());
+        itemsRepository.setChangeVersion(itemId, version);
+        eventPublisher.publishEvent(ListChangeEventDTO.items(item.getListId(), version, List.of(itemId), List.of()));
+
+        // FILE: delete the stored file after commit (kept in the directory of the list owner).
+        fileCleanupService.deleteAfterCommit(item.getOwnerId(), List.of(item.getStoredName()));
+    }
 
-        String storedName = image.getStoredName();
+    /**
+     * Deletes the images of several items of one list.
+     *
+     * <p>
+     * The image records are removed with one bulk statement. Stored files are deleted
+     * after commit, so a rolled back batch never loses the files of items that still exist.
+     * </p>
+     *
+     * @param listId ID of the list the items belong to
+     * @param itemIds IDs of the items
+     */
+    @Override
+    @Transactional
+    public void deleteItemImages(Long listId, Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) return;
 
-        // DB: unlink image from item (orphanRemoval may delete the image entity).
-        item.setImage(null);
-        itemsRepository.save(item);
+        List<String> storedNames = imageRepository.findStoredNamesByItemIds(itemIds);
+        if (storedNames.isEmpty()) return;
 
-        // FILE: delete the stored file.
-        storageService.deleteStoredFile(user.getId(), storedName);
+        // DB: remove image records of all items at once.
+        imageRepository.deleteByItemIds(itemIds);
+        imageMetadataService.invalidateList(listId);
+
+        // FILE: files are kept in the directory of the list owner.
+        Long storageUserId = listRepository.findOwnerId(listId).orElseThrow();
+        fileCleanupService.deleteAfterCommit(storageUserId, storedNames);
     }
 
     /**
-     * Loads an image entity and verifies that the given user is the owner.
+     * Loads the metadata of an image and verifies that the given user may read its list.
      *
      * <p>
-     * This helper is used by read operations (load image, get content type),
-     * so that access control is always enforced.
+     * This helper is used by read operations (load image), so that access control
+     * is always enforced. Both the metadata and the access check are usually
+     * answered from memory, so a warm request makes no database query.
      * </p>
      *
      * @param imageId ID of the image entity
      * @param user authenticated user
-     * @return owned image entity
+     * @return access data of the image the user may read
      */
-    private ItemsImageEntity getOwnedImage(Long imageId, UserEntity user) {
-        ItemsImageEntity image = imageRepository.findById(imageId)
+    private ImageAccessView getReadableImage(Long imageId, UserEntity user) {
+        ImageAccessView image = imageMetadataService.find(imageId)
                 .orElseThrow(() -> new RuntimeException("IMAGE_NOT_FOUND"));
 
-        // Ownership check based on the list owner.
-        Long ownerId = image.getItem().getList().getOwner().getId();
-        if (!ownerId.equals(user.getId())) {
-            throw new ForbiddenException("IMAGE_NOT_OWNED");
-        }
+        // Access check based on the list the image belongs to.
+        listAccessService.checkRead(image.getListId(), user);
         return image;
     }
+
+    /**
+     * Input stream that counts the bytes read and fails once more than the limit is read.
+     */
+    private static final class SizeLimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        SizeLimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                add(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                add(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            add(skipped);
+            return skipped;
+        }
+
+        private void add(long n) {
+            count += n;
+            if (count > limit) {
+                throw new ValidationException(ValidationErrorCode.IMAGE_TOO_LARGE);
+            }
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
 }
@@ -0,0 +1,73 @@
+package michal.service;
+
+import michal.entity.enumy.ImageType;
+
+import java.util.List;
+
+/**
+ * Service that generates smaller copies (thumbnails) of uploaded item images.
+ *
+ * <p>
+ * List screens show images only a few dozen pixels large, so sending the original file
+ * wastes most of the transfer. Thumbnails of the configured sizes
+ * ({@code app.storage.thumbnails.sizes}) are generated in the background after the upload commits
+ * and stored next to the original. Until they are ready, the original is served.
+ * </p>
+ */
+public interface ImageThumbnailService {
+
+    /**
+     * Queues thumbnail generation of an image once the current transaction commits
+     * (immediately when no transaction is active).
+     *
+     * @param imageId ID of the image
+     * @param userId ID of the user whose directory contains the file
+     * @param storedName internal stored file name of the original
+     * @param type type of the image
+     */
+    void generateAfterCommit(Long imageId, Long userId, String storedName, ImageType type);
+
+    /**
+     * Queues thumbnail generation of an image whose thumbnails were never recorded
+     * (the queue was full after its upload, or the generation failed).
+     *
+     * <p>
+     * Called when a thumbnail of such an image is requested. Images that are already queued
+     * are skipped, and a failed image is tried again only after
+     * {@code app.storage.thumbnails.retry-seconds}.
+     * </p>
+     *
+     * @param imageId ID of the image
+     * @param userId ID of the user whose directory contains the file
+     * @param storedName internal stored file name of the original
+     * @param type type of the image
+     */
+    void generateMissing(Long imageId, Long userId, String storedName, ImageType type);
+
+    /**
+     * Tells whether thumbnails are generated for images of the given type.
+     *
+     * @param type type of the image
+     * @return true if thumbnails will be generated, false if only the original exists
+     */
+    boolean supports(ImageType type);
+
+    /**
+     * Chooses the file to serve for the requested size: the smallest ready thumbnail
+     * that is at least as large, otherwise the original.
+     *
+     * @param storedName internal stored file name of the original
+     * @param variants sizes of the ready thumbnails (e.g. "64,256"), or null
+     * @param size requested size in pixels (longer side), or null for the original
+     * @return stored file name to serve
+     */
+    String resolve(String storedName, String variants, Integer size);
+
+    /**
+     * Returns the file names of all possible thumbnails of an original (used when it is deleted).
+     *
+     * @param storedName internal stored file name of the original
+     * @return stored file names of the thumbnails of all configured sizes
+     */
+    List<String> variantNames(String storedName);
+}
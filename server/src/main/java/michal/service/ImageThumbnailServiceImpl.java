@@ -0,0 +1,385 @@
+package michal.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import michal.entity.enumy.ImageType;
+import michal.entity.repository.ImageRepository;
+import michal.service.StorageService.StagedFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * {@link ImageThumbnailService} implementation based on {@link ImageIO}.
+ *
+ * <p>
+ * Uploads are processed by a small bounded pool of background threads
+ * ({@code app.storage.thumbnails.threads}). When its queue is full or the generation
+ * fails, the original is served, and the image is queued again when one of its thumbnails
+ * is requested. Thumbnails are produced from the largest size down, each one scaled from
+ * the previous (larger) one, and stored in the format of the original
+ * as {@code <name>_<size><extension>}. Formats without an ImageIO codec (WEBP) keep
+ * only the original.
+ * </p>
+ *
+ * <p>
+ * Originals are shared by images with the same content, and their thumbnails are served as
+ * immutable files, so a thumbnail file is never rewritten: new files are written under temporary
+ * names and renamed into place under the lock of the original ({@code lockStoredFile}, also taken
+ * by the file cleanup), and only while an image still references the original.
+ * </p>
+ */
+@Service
+public class ImageThumbnailServiceImpl implements ImageThumbnailService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageThumbnailServiceImpl.class);
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageMetadataService imageMetadataService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** Thumbnail sizes in pixels (longer side). */
+    @Value("${app.storage.thumbnails.sizes:64,256,1024}")
+    private int[] sizes;
+
+    /** Number of background threads generating thumbnails. */
+    @Value("${app.storage.thumbnails.threads:2}")
+    private int threads;
+
+    /** Maximum number of uploads waiting for processing. */
+    @Value("${app.storage.thumbnails.queue-size:200}")
+    private int queueSize;
+
+    /** Images with more pixels are not decoded (protects the memory of the server). */
+    @Value("${app.storage.thumbnails.max-pixels:40000000}")
+    private long maxPixels;
+
+    /** Time before a failed image is queued again by {@link #generateMissing}. */
+    @Value("${app.storage.thumbnails.retry-seconds:300}")
+    private long retrySeconds;
+
+    private ThreadPoolExecutor workers;
+
+    /** IDs of images that are queued or being processed, so each image is queued once. */
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    /** Time of the last failed generation per image ID (bounded like the queue; the oldest are dropped). */
+    private final Map<Long, Long> failedAt = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                    return size() > queueSize;
+                }
+            });
+
+    @PostConstruct
+    void start() {
+        // Largest size first, so every thumbnail is scaled from the previous (larger) one, not from the original.
+        sizes = Arrays.stream(sizes).filter(size -> size > 0).distinct()
+                .boxed().sorted((a, b) -> b - a).mapToInt(Integer::intValue).toArray();
+
+        AtomicInteger counter = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "image-thumbnails-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queues thumbnail generation of an image after commit.
+     *
+     * @param imageId ID of the image
+     * @param userId ID of the user whose directory contains the file
+     * @param storedName internal stored file name of the original
+     * @param type type of the image
+     */
+    @Override
+    public void generateAfterCommit(Long imageId, Long userId, String storedName, ImageType type) {
+        if (!supports(type)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(imageId, userId, storedName, type);
+                }
+            });
+        } else {
+            submit(imageId, userId, storedName, type);
+        }
+    }
+
+    /**
+     * Queues thumbnail generation of an image whose thumbnails were never recorded.
+     *
+     * @param imageId ID of the image
+     * @param userId ID of the user whose directory contains the file
+     * @param storedName internal stored file name of the original
+     * @param type type of the image
+     */
+    @Override
+    public void generateMissing(Long imageId, Long userId, String storedName, ImageType type) {
+        if (!supports(type)) {
+            return;
+        }
+        Long failed = failedAt.get(imageId);
+        if (failed != null && System.currentTimeMillis() - failed < retrySeconds * 1000) {
+            return;
+        }
+        submit(imageId, userId, storedName, type);
+    }
+
+    /**
+     * Tells whether thumbnails are generated for the type (some sizes are configured and ImageIO can encode it).
+     *
+     * @param type type of the image
+     * @return true if thumbnails will be generated
+     */
+    @Override
+    public boolean supports(ImageType type) {
+        return sizes.length > 0 && formatOf(type) != null;
+    }
+
+    /**
+     * Chooses the smallest ready thumbnail not smaller than the requested size.
+     *
+     * @param storedName internal stored file name of the original
+     * @param variants sizes of the ready thumbnails, or null
+     * @param size requested size, or null for the original
+     * @return stored file name to serve
+     */
+    @Override
+    public String resolve(String storedName, String variants, Integer size) {
+        if (size == null || variants == null || variants.isEmpty()) {
+            return storedName;
+        }
+        int best = 0;
+        for (String variant : variants.split(",")) {
+            int available = Integer.parseInt(variant);
+            if (available >= size && (best == 0 || available < best)) {
+                best = available;
+            }
+        }
+        // Only sizes smaller than the original exist, so a larger request gets the original.
+        return best == 0 ? storedName : variantName(storedName, best);
+    }
+
+    /**
+     * Returns the file names of the thumbnails of all configured sizes.
+     *
+     * @param storedName internal stored file name of the original
+     * @return stored file names of the thumbnails
+     */
+    @Override
+    public List<String> variantNames(String storedName) {
+        return Arrays.stream(sizes).mapToObj(size -> variantName(storedName, size)).toList();
+    }
+
+    private void submit(Long imageId, Long userId, String storedName, ImageType type) {
+        if (!pending.add(imageId)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    generate(imageId, userId, storedName, type);
+                } finally {
+                    pending.remove(imageId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(imageId);
+            // The original is served instead; the image is queued again when a thumbnail is requested.
+            log.debug("Thumbnails of image {} were skipped (queue is full)", imageId);
+        }
+    }
+
+    /**
+     * Generates and records the thumbnails of one image (runs on a background thread).
+     */
+    private void generate(Long imageId, Long userId, String storedName, ImageType type) {
+        String format = formatOf(type);
+        List<Integer> generated = new ArrayList<>();
+        List<StagedFile> staged = new ArrayList<>();
+        try {
+            // Undecodable or too large images keep only the original.
+            BufferedImage image = read(userId, storedName);
+            for (int size : sizes) {
+                // Thumbnails never upscale; larger requests are served the original.
+                if (image == null || Math.max(image.getWidth(), image.getHeight()) <= size) continue;
+                image = scale(image, size, format.equals("png"));
+                generated.add(size);
+                // Another image with the same original may have produced the thumbnail already.
+                String name = variantName(storedName, size);
+                if (!storageService.exists(userId, name)) {
+                    staged.add(storageService.stage(userId, name, encode(image, format)));
+                }
+            }
+
+            // An empty value still records that processing finished (the original is final for every size).
+            String variants = generated.stream().sorted().map(String::valueOf).collect(Collectors.joining(","));
+            Integer recorded = new TransactionTemplate(transactionManager)
+                    .execute(status -> publish(imageId, userId, storedName, variants, staged));
+            failedAt.remove(imageId);
+            // Cached metadata of the image does not know the thumbnails yet.
+            imageMetadataService.invalidate(imageId);
+            if (recorded == null || recorded == 0) return;
+            log.debug("Thumbnails {} of image {} were generated", variants, imageId);
+        } catch (IOException | RuntimeException e) {
+            // The original is served instead; the image is queued again by a later
+            // thumbnail request (after the retry delay).
+            failedAt.put(imageId, System.currentTimeMillis());
+            log.warn("Thumbnails of image {} were not generated", imageId, e);
+        } finally {
+            // Files that were not published (failure, or the image is gone) are removed.
+            staged.forEach(StagedFile::discard);
+        }
+    }
+
+    /**
+     * Records the thumbnails and moves their files into place, under the lock of the original
+     * that the file cleanup takes as well.
+     *
+     * <p>
+     * The files are published only if the image still references the original, so thumbnails
+     * never outlive a deleted original; existing files are kept, because they may be served.
+     * </p>
+     *
+     * @return 1 if the thumbnails were recorded, 0 if the image was replaced or deleted
+     */
+    private int publish(Long imageId, Long userId, String storedName, String variants,
+                        List<StagedFile> staged) {
+        imageRepository.lockStoredFile(userId, storedName);
+        int recorded = imageRepository.setVariants(imageId, storedName, variants);
+        if (recorded > 0) {
+            staged.forEach(StagedFile::publish);
+        }
+        return recorded;
+    }
+
+    /**
+     * Decodes the original, refusing images whose pixel count exceeds the limit.
+     */
+    private BufferedImage read(Long userId, String storedName) throws IOException {
+        try (InputStream in = storageService.loadAsResource(userId, storedName).getInputStream();
+             ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    log.debug("Image {} is too large for thumbnails", storedName);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales an image so its longer side equals {@code size}, halving the image first
+     * while it is more than twice as large (keeps bilinear scaling sharp).
+     */
+    private static BufferedImage scale(BufferedImage source, int size, boolean alpha) {
+        double ratio = (double) size / Math.max(source.getWidth(), source.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static InputStream encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, format, out)) {
+            throw new IOException("No writer for " + format);
+        }
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    /** ImageIO format of the thumbnails, or null when the type cannot be encoded. */
+    private static String formatOf(ImageType type) {
+        return switch (type) {
+            case JPEG, JPG -> "jpeg";
+            case PNG -> "png";
+            default -> null;
+        };
+    }
+
+    /** Stored name of a thumbnail, e.g. {@code 1b2c….png -> 1b2c…_256.png}. */
+    private static String variantName(String storedName, int size) {
+        int dot = storedName.lastIndexOf('.');
+        return dot < 0
+                ? storedName + "_" + size
+                : storedName.substring(0, dot) + "_" + size + storedName.substring(dot);
+    }
+}
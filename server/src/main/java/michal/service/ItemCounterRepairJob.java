@@ -0,0 +1,66 @@
+package michal.service;
+
+import michal.entity.repository.ListRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Maintenance job that repairs the denormalized item counters of lists.
+ *
+ * <p>
+ * The counters ({@code itemsCount}, {@code purchasedCount}) are normally kept correct
+ * by the item service. This job fixes any drift (e.g. after manual changes in the database).
+ * Lists created before the counters existed are filled once by
+ * {@code db/migration/item_counters_backfill.sql}.
+ * </p>
+ *
+ * <p>
+ * Every list is repaired in its own short transaction under the lock of its row, which
+ * every item change takes as well, so the job never writes back counts that a concurrent
+ * item change has already made stale.
+ * </p>
+ */
+@Service
+public class ItemCounterRepairJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemCounterRepairJob.class);
+
+    @Autowired
+    private ListRepository listRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Periodically recomputes the counters of lists whose counters are wrong.
+     *
+     * <p>
+     * Runs by default every night; the schedule can be changed with
+     * {@code app.list.counter-repair-cron}.
+     * </p>
+     */
+    @Scheduled(cron = "${app.list.counter-repair-cron:0 30 3 * * *}")
+    public void repairCounters() {
+        List<Long> candidates = listRepository.findIdsWithWrongItemCounters();
+        if (candidates.isEmpty()) return;
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int repaired = 0;
+        for (Long listId : candidates) {
+            // The list may have been changed or deleted since; it is checked again under the lock.
+            Integer result = transaction.execute(status -> listRepository.lockById(listId)
+                    .map(id -> listRepository.recalculateItemCounters(id))
+                    .orElse(0));
+            if (result != null) repaired += result;
+        }
+
+        log.debug("Item counters repaired for {} lists", repaired);
+    }
+}
@@ -0,0 +1,45 @@
+package michal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Creates the trigram index used by the item search.
+ *
+ * <p>
+ * The index ({@code gin (name gin_trgm_ops)}) cannot be described with JPA annotations,
+ * so it is created once the schema is up to date. Both statements are idempotent.
+ * The index is built {@code concurrently}, so item writes are not blocked
+ * while it is created on an existing database.
+ * If the database user may not create the {@code pg_trgm} extension,
+ * run {@code db/migration/items_name_trgm.sql} as a privileged user instead.
+ * </p>
+ */
+@Service
+public class ItemSearchIndexInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemSearchIndexInitializer.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates the extension and the index once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createSearchIndex() {
+        try {
+            jdbcTemplate.execute("create extension if not exists pg_trgm");
+            jdbcTemplate.execute("create index concurrently if not exists idx_items_name_trgm on items using gin (name gin_trgm_ops)");
+        } catch (DataAccessException e) {
+            // Search still works without the index, only slower (it fails without the extension).
+            log.warn("Trigram index of item names was not created", e);
+        }
+    }
+}
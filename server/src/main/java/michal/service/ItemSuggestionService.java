@@ -0,0 +1,39 @@
+package michal.service;
+
+import michal.entity.UserEntity;
+
+import java.util.List;
+
+/**
+ * Service suggesting item names while the user types (autocomplete).
+ *
+ * <p>
+ * Suggestions come from the item history of the user: names used more often are offered first.
+ * Typed text is matched as a prefix, ignoring case and diacritics ("ml" finds "Mléko").
+ * </p>
+ */
+public interface ItemSuggestionService {
+
+    /**
+     * Returns item names starting with the typed text, most frequently used first.
+     *
+     * @param prefix typed text (empty returns the most used names)
+     * @param limit maximum number of suggestions (null for the default)
+     * @param user authenticated user
+     * @return suggested item names
+     */
+    List<String> suggest(String prefix, Integer limit, UserEntity user);
+
+    /**
+     * Records that the user added an item with the given name.
+     *
+     * <p>
+     * Updates the loaded suggestions of the user once the surrounding transaction commits.
+     * Nothing happens if the suggestions of the user are not loaded yet.
+     * </p>
+     *
+     * @param userId ID of the user
+     * @param name name of the added item
+     */
+    void recordItemName(Long userId, String name);
+}
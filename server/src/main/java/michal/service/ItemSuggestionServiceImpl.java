@@ -0,0 +1,257 @@
+package michal.service;
+
+import michal.entity.UserEntity;
+import michal.entity.repository.ItemNameCountView;
+import michal.entity.repository.ItemsRepository;
+import michal.service.Exception.ForbiddenException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory implementation of {@link ItemSuggestionService}.
+ *
+ * <p>
+ * The names of every active user are kept as a sorted array of normalized keys
+ * (lower case without diacritics) with display names and use counts in parallel arrays.
+ * A suggestion is a binary search for the prefix range followed by a top-k selection
+ * by count, without any database round trip. The index is built lazily by one query
+ * on the first request and then updated incrementally when the user adds items.
+ * </p>
+ *
+ * <p>
+ * Memory is bounded twice: every user keeps at most {@code app.items.suggest.max-names} names
+ * (the least used name is dropped for a new one) and at most {@code app.items.suggest.max-users}
+ * users are kept (the least recently used user is evicted and rebuilt on the next request).
+ * </p>
+ */
+@Service
+public class ItemSuggestionServiceImpl implements ItemSuggestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemSuggestionServiceImpl.class);
+
+    /** Combining marks left after canonical decomposition (diacritics). */
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    @Autowired
+    private ItemsRepository itemsRepository;
+
+    /** Maximum number of users whose names are kept in memory. */
+    @Value("${app.items.suggest.max-users:10000}")
+    private int maxUsers;
+
+    /** Maximum number of distinct names kept per user. */
+    @Value("${app.items.suggest.max-names:1000}")
+    private int maxNames;
+
+    /** Default number of returned suggestions. */
+    @Value("${app.items.suggest.limit:10}")
+    private int defaultLimit;
+
+    /** Upper bound of the number of suggestions requested by the client. */
+    @Value("${app.items.suggest.max-limit:50}")
+    private int maxLimit;
+
+    /** Name index per user ID, ordered by last access (LRU). */
+    private final Map<Long, NameIndex> indexes = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, NameIndex> eldest) {
+                    return size() > maxUsers;
+                }
+            });
+
+    /**
+     * Returns item names starting with the typed text, most frequently used first.
+     *
+     * @param prefix typed text (empty returns the most used names)
+     * @param limit maximum number of suggestions (null for the default)
+     * @param user authenticated user
+     * @return suggested item names
+     */
+    @Override
+    public List<String> suggest(String prefix, Integer limit, UserEntity user) {
+        if (user == null || user.getId() == null) {
+            throw new ForbiddenException("USER_NOT_LOGGED");
+        }
+        int size = limit == null ? defaultLimit : Math.max(1, Math.min(limit, maxLimit));
+
+        NameIndex index = indexes.get(user.getId());
+        if (index == null) {
+            // Built outside the lock; a concurrent build of the same user simply wins or loses.
+            index = load(user.getId());
+            NameIndex existing = indexes.putIfAbsent(user.getId(), index);
+            if (existing != null) index = existing;
+        }
+        return index.suggest(normalize(prefix == null ? "" : prefix), size);
+    }
+
+    /**
+     * Records that the user added an item with the given name (after commit).
+     *
+     * @param userId ID of the user
+     * @param name name of the added item
+     */
+    @Override
+    public void recordItemName(Long userId, String name) {
+        if (userId == null || name == null || name.isBlank()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(userId, name);
+                }
+            });
+        } else {
+            record(userId, name);
+        }
+    }
+
+    private void record(Long userId, String name) {
+        String display = name.strip();
+        indexes.computeIfPresent(userId, (key, index) -> index.withName(normalize(display), display, maxNames));
+    }
+
+    /**
+     * Builds the name index of a user from the most frequent names of their lists.
+     *
+     * @param userId ID of the user
+     * @return sorted name index
+     */
+    private NameIndex load(Long userId) {
+        // Names differing only in case or diacritics share one key; the most used spelling is displayed.
+        Map<String, String> names = new TreeMap<>();
+        Map<String, Integer> counts = new TreeMap<>();
+        for (ItemNameCountView row : itemsRepository.findItemNameCounts(userId, maxNames)) {
+            String display = row.getName().strip();
+            if (display.isEmpty()) continue;
+            String key = normalize(display);
+            names.putIfAbsent(key, display);
+            counts.merge(key, (int) row.getUses(), Integer::sum);
+        }
+
+        String[] keys = names.keySet().toArray(String[]::new);
+        String[] displays = names.values().toArray(String[]::new);
+        int[] uses = counts.values().stream().mapToInt(Integer::intValue).toArray();
+
+        log.debug("Item name suggestions of user {} loaded with {} names", userId, keys.length);
+        return new NameIndex(keys, displays, uses);
+    }
+
+    /**
+     * Converts a name into its lookup key: trimmed, lower case and without diacritics.
+     *
+     * @param text name or typed text
+     * @return normalized key
+     */
+    private static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text.strip().toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("");
+    }
+
+    /**
+     * Immutable name index of one user; changes create a new instance (copy on write).
+     *
+     * @param keys sorted normalized names
+     * @param names display names (same order as keys)
+     * @param counts use counts (same order as keys)
+     */
+    private record NameIndex(String[] keys, String[] names, int[] counts) {
+
+        /** Returns up to {@code limit} names whose key starts with the prefix, most used first. */
+        List<String> suggest(String prefix, int limit) {
+            int from = lowerBound(prefix);
+            int to = prefix.isEmpty() ? keys.length : lowerBound(prefix + Character.MAX_VALUE);
+
+            // Top-k selection: a min-heap keeps the best candidates seen so far.
+            Comparator<Integer> byUse = Comparator.<Integer>comparingInt(i -> counts[i])
+                    .thenComparing(i -> keys[i], Comparator.reverseOrder());
+            PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, byUse);
+            for (int i = from; i < to; i++) {
+                best.add(i);
+                if (best.size() > limit) best.poll();
+            }
+
+            List<Integer> order = new ArrayList<>(best);
+            order.sort(byUse.reversed());
+            List<String> result = new ArrayList<>(order.size());
+            for (int i : order) result.add(names[i]);
+            return result;
+        }
+
+        /** Returns the index with one more use of the name (inserted if new, dropping the least used name when full). */
+        NameIndex withName(String key, String name, int maxNames) {
+            int position = Arrays.binarySearch(keys, key);
+            if (position >= 0) {
+                int[] updated = counts.clone();
+                updated[position]++;
+                return new NameIndex(keys, names, updated);
+            }
+
+            // Insert the new name at its sorted position.
+            int insertAt = -position - 1;
+            String[] newKeys = insert(keys, insertAt, key);
+            String[] newNames = insert(names, insertAt, name);
+            int[] newCounts = new int[counts.length + 1];
+            System.arraycopy(counts, 0, newCounts, 0, insertAt);
+            newCounts[insertAt] = 1;
+            System.arraycopy(counts, insertAt, newCounts, insertAt + 1, counts.length - insertAt);
+            NameIndex grown = new NameIndex(newKeys, newNames, newCounts);
+            return newKeys.length > maxNames ? grown.withoutLeastUsed(insertAt) : grown;
+        }
+
+        /** Removes the least used name other than the one at {@code keep}. */
+        private NameIndex withoutLeastUsed(int keep) {
+            int victim = -1;
+            for (int i = 0; i < counts.length; i++) {
+                if (i != keep && (victim < 0 || counts[i] < counts[victim])) victim = i;
+            }
+            String[] newKeys = remove(keys, victim);
+            String[] newNames = remove(names, victim);
+            int[] newCounts = new int[counts.length - 1];
+            System.arraycopy(counts, 0, newCounts, 0, victim);
+            System.arraycopy(counts, victim + 1, newCounts, victim, counts.length - victim - 1);
+            return new NameIndex(newKeys, newNames, newCounts);
+        }
+
+        /** First position whose key is not smaller than the given one. */
+        private int lowerBound(String key) {
+            int position = Arrays.binarySearch(keys, key);
+            return position >= 0 ? position : -position - 1;
+        }
+
+        private static String[] insert(String[] source, int at, String value) {
+            String[] target = new String[source.length + 1];
+            System.arraycopy(source, 0, target, 0, at);
+            target[at] = value;
+            System.arraycopy(source, at, target, at + 1, source.length - at);
+            return target;
+        }
+
+        private static String[] remove(String[] source, int at) {
+            String[] target = new String[source.length - 1];
+            System.arraycopy(source, 0, target, 0, at);
+            System.arraycopy(source, at + 1, target, at, source.length - at - 1);
+            return target;
+        }
+    }
+}
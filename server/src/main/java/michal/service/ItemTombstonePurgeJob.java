@@ -0,0 +1,57 @@
+package michal.service;
+
+import michal.entity.repository.ItemTombstoneRepository;
+import michal.entity.repository.ListRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Maintenance job that removes old item tombstones.
+ *
+ * <p>
+ * Tombstones are needed only until every client has synchronized the deletion.
+ * Before they are removed, the sync floor of their lists is raised, so clients
+ * that synchronized earlier than that receive the full item collection instead
+ * of a delta with missing deletions.
+ * </p>
+ */
+@Service
+public class ItemTombstonePurgeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemTombstonePurgeJob.class);
+
+    @Autowired
+    private ListRepository listRepository;
+
+    @Autowired
+    private ItemTombstoneRepository itemTombstoneRepository;
+
+    /** Number of days tombstones are kept. */
+    @Value("${app.items.tombstone-retention-days:30}")
+    private int retentionDays;
+
+    /**
+     * Periodically purges tombstones older than the retention window.
+     *
+     * <p>
+     * Runs by default every night; the schedule can be changed with
+     * {@code app.items.tombstone-purge-cron}.
+     * </p>
+     */
+    @Scheduled(cron = "${app.items.tombstone-purge-cron:0 45 3 * * *}")
+    @Transactional
+    public void purgeTombstones() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        listRepository.raiseSyncFloor(cutoff);
+        int purged = itemTombstoneRepository.deleteByDeletedAtBefore(cutoff);
+
+        log.debug("{} item tombstones were purged", purged);
+    }
+}
@@ -1,9 +1,16 @@
 package michal.service;
 
+import michal.dto.CursorPageDTO;
+import michal.dto.ItemBatchOperationDTO;
+import michal.dto.ItemBatchResultDTO;
+import michal.dto.ItemSearchResultDTO;
+import michal.dto.ItemPatchDTO;
 import michal.dto.ItemsDTO;
+import michal.dto.ItemsDeltaDTO;
 import michal.entity.UserEntity;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -26,9 +33,10 @@ public interface ItemsService {
      *
      * @param listId   ID of the list
      * @param itemsDTO item data to add
+     * @param user     authenticated user adding the item
      * @return created item
      */
-    ItemsDTO addItems(Long listId, ItemsDTO itemsDTO);
+    ItemsDTO addItems(Long listId, ItemsDTO itemsDTO, UserEntity user);
 
     /**
      * Returns all items belonging to the given list.
@@ -63,12 +71,41 @@ public interface ItemsService {
      */
     ItemsDTO getItem(Long id, Long listId, UserEntity user);
 
+    /**
+     * Returns the items of a list created, changed or deleted since a given list version.
+     *
+     * <p>
+     * Used by clients that keep a local copy of the items and refresh it incrementally.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @param since last change version known to the client
+     * @param user authenticated user
+     * @return delta of the items (or the full collection if a delta cannot be computed)
+     */
+    ItemsDeltaDTO getItemsSince(Long listId, long since, UserEntity user);
+
+    /**
+     * Searches items by name across all lists the user can access (owned and shared).
+     *
+     * <p>
+     * Results are ranked by similarity of the item name to the searched text, best match first.
+     * </p>
+     *
+     * @param query searched text
+     * @param after cursor of the requested page (null for the first page)
+     * @param size number of items per page (null for the default size)
+     * @param user authenticated user
+     * @return one page of found items
+     */
+    CursorPageDTO<ItemSearchResultDTO> searchItems(String query, String after, Integer size, UserEntity user);
+
     /**
      * Updates an existing item.
      *
      * <p>
      * The service should validate the updated fields and check that the user
-     * is allowed to modify the item (typically the list owner).
+     * is allowed to modify the item (list owner or user the list is shared with).
      * </p>
      *
      * @param id item ID
@@ -78,6 +115,33 @@ public interface ItemsService {
      */
     ItemsDTO updateItem(Long id, ItemsDTO dto, UserEntity user);
 
+    /**
+     * Changes selected fields of an item if it was not changed since the client loaded it.
+     *
+     * <p>
+     * The change (including the access check and the version check) is done by a single
+     * conditional statement, so e.g. ticking the purchased checkbox costs one round trip.
+     * </p>
+     *
+     * @param listId ID of the list the item belongs to
+     * @param id item ID
+     * @param patch changed fields and the version of the item they are based on
+     * @param user authenticated user performing the change
+     * @return changed item with its new version
+     */
+    ItemsDTO patchItem(Long listId, Long id, ItemPatchDTO patch, UserEntity user);
+
+    /**
+     * Moves an item to a new place in its list.
+     *
+     * @param listId ID of the list the item belongs to
+     * @param id ID of the moved item
+     * @param afterId ID of the item the moved item is placed after, or {@code null} for the top of the list
+     * @param user authenticated user performing the change
+     * @return moved item with its new position
+     */
+    ItemsDTO moveItem(Long listId, Long id, Long afterId, UserEntity user);
+
     /**
      * Updates (uploads/replaces) an image for the given item.
      *
@@ -94,17 +158,21 @@ public interface ItemsService {
     ItemsDTO updateItemImage(Long id, MultipartFile file, UserEntity user);
 
     /**
-     * Imports a collection of items into the given list.
+     * Updates (uploads/replaces) an image for the given item from a raw request body.
      *
      * <p>
-     * This method is typically used for bulk operations (e.g. import from JSON/CSV).
-     * Validation and access control are still required.
+     * The content is streamed into the storage without buffering. Its size and type are
+     * validated while it is read (a declared length over the limit is rejected up front).
      * </p>
      *
-     * @param listId ID of the list
-     * @param items items to import
+     * @param id item ID
+     * @param content image content
+     * @param contentLength declared length of the content, or -1 when unknown
+     * @param originalName file name sent by the client (may be null)
+     * @param user authenticated user performing the operation
+     * @return updated item (with updated image data)
      */
-    void importItems(Long listId, List<ItemsDTO> items);
+    ItemsDTO updateItemImage(Long id, InputStream content, long contentLength, String originalName, UserEntity user);
 
     /**
      * Removes an item by its ID.
@@ -113,8 +181,36 @@ public interface ItemsService {
      * The service should verify that the user has permission to delete the item.
      * </p>
      *
+     * @param listId ID of the list the item belongs to
      * @param id item ID
      * @param user authenticated user performing the delete
      */
-    void removeItem(long id, UserEntity user);
+    void removeItem(Long listId, long id, UserEntity user);
+
+    /**
+     * Applies several item operations (set purchased, update, delete) to one list.
+     *
+     * <p>
+     * Access to the list is checked once and all operations are applied in one transaction.
+     * Operations on items that do not belong to the list are reported as not found
+     * instead of failing the whole batch.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @param operations operations in the order they should be applied
+     * @param user authenticated user
+     * @return one result per operation, in request order
+     */
+    List<ItemBatchResultDTO> batchUpdate(Long listId, List<ItemBatchOperationDTO> operations, UserEntity user);
+
+    /**
+     * Validates batch operations without applying them (size of the batch and values required by each type).
+     *
+     * <p>
+     * Used to reject invalid operations when they are submitted, even if they are written later.
+     * </p>
+     *
+     * @param operations operations to validate
+     */
+    void validateBatchOperations(List<ItemBatchOperationDTO> operations);
 }
\ No newline at end of file
@@ -1,32 +1,67 @@
 package michal.service;
 
+import michal.dto.CursorPageDTO;
+import michal.dto.ItemBatchOperationDTO;
+import michal.dto.ItemBatchResultDTO;
+import michal.dto.ItemSearchResultDTO;
+import michal.dto.ItemPatchDTO;
 import michal.dto.ItemsDTO;
+import michal.dto.ItemsDeltaDTO;
+import michal.dto.ListChangeEventDTO;
 import michal.dto.mapper.ItemsMapper;
 import michal.entity.ItemsEntity;
-import michal.entity.ListEntity;
 import michal.entity.UserEntity;
+import michal.entity.enumy.ItemBatchOperationType;
+import michal.entity.enumy.ItemBatchStatus;
+import michal.entity.enumy.ValidationErrorCode;
+import michal.entity.repository.ItemAccessView;
+import michal.entity.repository.ItemChangeView;
+import michal.entity.repository.ItemDeleteView;
+import michal.entity.repository.ItemSearchView;
+import michal.entity.repository.ItemStateView;
+import michal.entity.repository.ItemTombstoneRepository;
+import michal.entity.repository.ListSyncView;
 import michal.entity.repository.ItemsRepository;
 import michal.entity.repository.ListRepository;
+import michal.service.Exception.ConflictException;
 import michal.service.Exception.ForbiddenException;
+import michal.service.Exception.ValidationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.access.AccessDeniedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Service implementation for managing shopping list items.
  *
  * <p>
- * This class contains business logic for item CRUD operations and
- * enforces access control (ownership checks) for protected actions.
+ * This class contains business logic for item CRUD operations.
+ * Access control is delegated to {@link ListAccessService}: items inherit
+ * the access rules of the list they belong to.
  * </p>
  */
 @Service
 public class ItemsServiceImpl implements ItemsService {
 
+    private static final Logger log = LoggerFactory.getLogger(ItemsServiceImpl.class);
+
     @Autowired
     private ItemsRepository itemsRepository;
 
@@ -39,31 +74,86 @@ public class ItemsServiceImpl implements ItemsService {
     @Autowired
     private ImageService imageService;
 
+    @Autowired
+    private ListAccessService listAccessService;
+
+    @Autowired
+    private ItemTombstoneRepository itemTombstoneRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ItemSuggestionService itemSuggestionService;
+
+    @Autowired
+    private FileCleanupService fileCleanupService;
+
+    @Autowired
+    private ImageMetadataService imageMetadataService;
+
+    /** Maximum number of operations accepted in one batch request. */
+    @Value("${app.items.batch-max-operations:500}")
+    private int batchMaxOperations;
+
+    /** Default number of items per page of search results. */
+    @Value("${app.items.search.page-size:20}")
+    private int searchPageSize;
+
+    /** Upper bound of the page size requested by the client. */
+    @Value("${app.items.search.max-page-size:100}")
+    private int searchMaxPageSize;
+
+    /** Gap between the sort keys of two neighbouring items. */
+    @Value("${app.items.position-step:1024}")
+    private long positionStep;
+
+    /** Minimum length of the searched text (shorter text has no trigrams to search by). */
+    @Value("${app.items.search.min-length:3}")
+    private int searchMinLength;
+
     /**
      * Adds a new item to a specific list.
      *
      * <p>
-     * The method maps the DTO to an entity and saves it into the database.
+     * The method maps the DTO to an entity, saves it into the database
+     * and increments the item counters of the list.
      * </p>
      *
      * @param listId   ID of the list
      * @param itemsDTO item data
+     * @param user     authenticated user
      * @return created item
      */
     @Override
     @Transactional
-    public ItemsDTO addItems(Long listId, ItemsDTO itemsDTO) {
+    public ItemsDTO addItems(Long listId, ItemsDTO itemsDTO, UserEntity user) {
         // Basic input validation: listId must be provided.
         if (listId == null) {
             throw new IllegalArgumentException("List ID nesmí být null");
         }
+        // The user must be allowed to change items of the list.
+        listAccessService.checkWrite(listId, user);
 
         // Map DTO to entity (the mapper is responsible for field conversion).
         ItemsEntity items = itemsMapper.toEntity(itemsDTO);
+        // A new record is always created in the list from the request path.
+        items.setId(null);
+        items.setList(listRepository.getReferenceById(listId));
+
+        // Keep the denormalized item counters of the list in sync and remember the new list version.
+        items.setChangeVersion(changeList(listId, 1, items.isPurchased() ? 1 : 0));
+        // New items are appended at the end; the list row is locked now, so concurrent adds get distinct keys.
+        items.setPosition(itemsRepository.findMaxPosition(listId) + positionStep);
 
         // Save entity to database
         ItemsEntity saved = itemsRepository.save(items);
 
+        // Notify subscribers of the list (delivered after commit).
+        eventPublisher.publishEvent(ListChangeEventDTO.items(listId, saved.getChangeVersion(), List.of(saved.getId()), List.of()));
+        // The name becomes a more likely suggestion for the user.
+        itemSuggestionService.recordItemName(user.getId(), saved.getName());
+
         // Debug log (useful during development).
         System.out.println("Item with ID " + saved.getId() + " and name " + saved.getName() + " was saved.");
         // Return mapped DTO (API layer uses DTOs, not entities).
@@ -74,8 +164,8 @@ public class ItemsServiceImpl implements ItemsService {
      * Returns a single item by ID.
      *
      * <p>
-     * This method enforces access control by querying only items that belong
-     * to the specified list and are owned by the authenticated user.
+     * This method checks read access to the list and loads the item
+     * only if it belongs to that list.
      * </p>
      *
      * @param id item ID
@@ -86,10 +176,13 @@ public class ItemsServiceImpl implements ItemsService {
     @Override
     @Transactional(readOnly = true)
     public ItemsDTO getItem(Long id, Long listId, UserEntity user) {
-        // Load item only if it belongs to the list and the list owner matches the current user.
+        // Access check for the list (served from the access cache).
+        listAccessService.checkRead(listId, user);
+
+        // Load item only if it belongs to the list.
         ItemsEntity item = itemsRepository
-                .findByIdAndList_IdAndList_Owner_Id(id, listId, user.getId())
-                .orElseThrow(() -> new org.springframework.security.access.AccessDeniedException("No access"));
+                .findByIdAndListId(id, listId)
+                .orElseThrow(() -> new RuntimeException("ITEM_NOT_FOUND"));
         return itemsMapper.toDTO(item);
     }
 
@@ -97,8 +190,8 @@ public class ItemsServiceImpl implements ItemsService {
      * Returns all items belonging to a specific list.
      *
      * <p>
-     * This method first checks whether the user owns the list.
-     * If not, it throws an access denied exception.
+     * This method first checks whether the user may read the list
+     * (owner or user the list is shared with). If not, it throws {@link ForbiddenException}.
      * </p>
      *
      * @param listId ID of the list
@@ -109,22 +202,55 @@ public class ItemsServiceImpl implements ItemsService {
     @Transactional(readOnly = true)
     public List<ItemsDTO> getAllItems(Long listId, UserEntity user) {
 
-        // Quick access check for the list.
-        if (!listRepository.existsByIdAndOwnerId(listId, user.getId())) {
-            throw new AccessDeniedException("No access to this list");
-        }
+        // Quick access check for the list (served from the access cache).
+        listAccessService.checkRead(listId, user);
         // Load items and convert entities to DTOs.
-        return itemsRepository.findByListId(listId).stream()
+        return itemsRepository.findByListIdOrderByPositionAscIdAsc(listId).stream()
                 .map(itemsMapper::toDTO)
                 .toList();
     }
 
+    /**
+     * Returns the items of a list changed since a version known to the client.
+     *
+     * <p>
+     * The list version is read first, so every change after it is sent again on the next sync
+     * rather than lost. If the requested version is older than the sync floor of the list
+     * (tombstones were already purged) or newer than the list itself, the full collection is returned.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @param since last version known to the client
+     * @param user authenticated user
+     * @return changed and deleted items, or the whole collection
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ItemsDeltaDTO getItemsSince(Long listId, long since, UserEntity user) {
+        // Quick access check for the list (served from the access cache).
+        listAccessService.checkRead(listId, user);
+
+        ListSyncView sync = listRepository.findSyncState(listId)
+                .orElseThrow(() -> new RuntimeException("List " + listId + " nenalezen"));
+        long version = sync.getChangeVersion();
+
+        if (since < sync.getSyncFloorVersion() || since > version) {
+            return new ItemsDeltaDTO(version, true, getAllItems(listId, user), List.of());
+        }
+        List<ItemsDTO> changed = itemsRepository.findByListIdAndChangeVersionGreaterThan(listId, since).stream()
+                .map(itemsMapper::toDTO)
+                .toList();
+        List<Long> deleted = itemTombstoneRepository.findDeletedItemIds(listId, since);
+        return new ItemsDeltaDTO(version, false, changed, deleted);
+    }
+
     /**
      * Updates an existing item.
      *
      * <p>
-     * The update is allowed only for the list owner (ownership check is enforced).
+     * The update is allowed only for users with write access to the list.
      * The method updates fields from DTO and saves changes to the database.
+     * If the DTO contains a version, the item must still have it.
      * </p>
      *
      * @param id item ID
@@ -135,8 +261,19 @@ public class ItemsServiceImpl implements ItemsService {
     @Override
     @Transactional
     public ItemsDTO updateItem(Long id, ItemsDTO itemsDTO, UserEntity user) {
-        // Load item and verify ownership.
-        ItemsEntity item = getOwnedItem(id, user);
+        // Load item and verify access to its list.
+        ItemsEntity item = getWritableItem(id, user);
+
+        // A client that sends the version it edited must not overwrite a newer change.
+        if (itemsDTO != null && itemsDTO.getVersion() != null && itemsDTO.getVersion() != item.getVersion()) {
+            throw new ConflictException("ITEM_VERSION_CONFLICT");
+        }
+
+        // Purchased toggle changes the purchased counter of the list (the change version is bumped always).
+        // The list is updated before the item, so the item is written only once with the new version.
+        boolean purchased = itemsDTO != null ? itemsDTO.isPurchased() : item.isPurchased();
+        long purchasedDelta = item.isPurchased() == purchased ? 0 : (purchased ? 1 : -1);
+        long version = changeList(item.getList().getId(), 0, purchasedDelta);
 
         // Update entity fields from DTO (if DTO is provided).
         if (itemsDTO != null) {
@@ -144,19 +281,113 @@ public class ItemsServiceImpl implements ItemsService {
             item.setCount(itemsDTO.getCount());
             item.setPurchased(itemsDTO.isPurchased());
         }
-        // Persist changes.
-        ItemsEntity saved = itemsRepository.save(item);
+        item.setChangeVersion(version);
+        // Persist changes (flushed now, so the returned DTO already carries the incremented version).
+        ItemsEntity saved = itemsRepository.saveAndFlush(item);
+
+        // Notify subscribers of the list (delivered after commit).
+        eventPublisher.publishEvent(ListChangeEventDTO.items(saved.getList().getId(), version, List.of(saved.getId()), List.of()));
 
         return itemsMapper.toDTO(saved);
     }
 
+    /**
+     * Changes selected fields of an item with one conditional statement.
+     *
+     * <p>
+     * Access, item version, list counters, list change version and the item itself
+     * are all handled by {@link ItemsRepository#updateIfCurrent}. Only when nothing was changed,
+     * the item is loaded to tell a missing item or missing access from a version conflict.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @param id item ID
+     * @param patch changed fields and the version they are based on
+     * @param user authenticated user
+     * @return changed item
+     * @throws ConflictException if the item was changed by someone else in the meantime
+     */
+    @Override
+    @Transactional
+    public ItemsDTO patchItem(Long listId, Long id, ItemPatchDTO patch, UserEntity user) {
+        if (user == null || user.getId() == null) {
+            throw new ForbiddenException("USER_NOT_LOGGED");
+        }
+        if (patch == null || patch.getVersion() == null) {
+            throw new ValidationException(ValidationErrorCode.ITEM_VERSION_MISSING);
+        }
+        if (patch.getName() != null && patch.getName().isBlank()) {
+            throw new ValidationException(ValidationErrorCode.ITEM_NAME_EMPTY);
+        }
+        if (patch.getCount() != null && patch.getCount() <= 0) {
+            throw new ValidationException(ValidationErrorCode.ITEM_COUNT_EMPTY);
+        }
+
+        ItemChangeView changed = itemsRepository.updateIfCurrent(listId, id, user.getId(), patch.getVersion(),
+                        patch.getName(), patch.getCount(), patch.getPurchased())
+                .orElse(null);
+        if (changed == null) {
+            // Nothing was written (or the list adjustment is rolled back by the exception).
+            checkWritableInList(id, listId, user);
+            throw new ConflictException("ITEM_VERSION_CONFLICT");
+        }
+
+        // Notify subscribers of the list (delivered after commit).
+        eventPublisher.publishEvent(ListChangeEventDTO.items(listId, changed.getChangeVersion(), List.of(id), List.of()));
+        return itemsMapper.toDTO(changed);
+    }
+
+    /**
+     * Moves an item behind another item of its list.
+     *
+     * <p>
+     * Normally a single-row update ({@link ItemsRepository#moveAfter}). Only when the neighbours
+     * have no free sort key between them, all keys of the list are rewritten once
+     * ({@link ItemsRepository#rebalancePositions}) and the move is repeated.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @param id ID of the moved item
+     * @param afterId ID of the item the moved item is placed after, or {@code null} for the top of the list
+     * @param user authenticated user
+     * @return moved item with its new position
+     */
+    @Override
+    @Transactional
+    public ItemsDTO moveItem(Long listId, Long id, Long afterId, UserEntity user) {
+        if (id.equals(afterId)) {
+            throw new ValidationException(ValidationErrorCode.ITEM_MOVE_INVALID);
+        }
+        listAccessService.checkWrite(listId, user);
+
+        ItemChangeView moved = itemsRepository.moveAfter(listId, id, afterId, positionStep).orElse(null);
+        List<Long> rebalanced = List.of();
+        if (moved == null) {
+            // Either an item is missing, or there is no free key between the neighbours.
+            checkWritableInList(id, listId, user);
+            if (afterId != null) {
+                checkWritableInList(afterId, listId, user);
+            }
+            rebalanced = itemsRepository.rebalancePositions(listId, positionStep);
+            moved = itemsRepository.moveAfter(listId, id, afterId, positionStep)
+                    .orElseThrow(() -> new RuntimeException("ITEM_NOT_FOUND"));
+
+            log.debug("Positions of {} items of list {} were rebalanced", rebalanced.size(), listId);
+        }
+
+        // Notify subscribers of the list (delivered after commit); after a rebalance every key changed.
+        List<Long> changed = rebalanced.isEmpty() ? List.of(id) : rebalanced;
+        eventPublisher.publishEvent(ListChangeEventDTO.items(listId, moved.getChangeVersion(), changed, List.of()));
+        return itemsMapper.toDTO(moved);
+    }
+
     /**
      * Updates (uploads/replaces) an item image.
      *
      * <p>
-     * This method checks ownership, then delegates the actual file processing
-     * to {@link ImageService}. After the image is updated, it reloads the item
-     * and returns the latest DTO representation.
+     * The access check and the actual file processing are delegated
+     * to {@link ImageService}. After the image is updated, the item is loaded
+     * and returned as the latest DTO representation.
      * </p>
      *
      * @param id item ID
@@ -166,116 +397,385 @@ public class ItemsServiceImpl implements ItemsService {
      */
     @Override
     public ItemsDTO updateItemImage(Long id, MultipartFile file, UserEntity user){
-        // Ensure that only the owner can update the image.
-        ItemsEntity item = getOwnedItem(id, user);
-
-        // If no file was provided, return the current item state (no change).
-        if (file == null || file.isEmpty()) {
-            // you can either return current state, or throw 400
-            return itemsMapper.toDTO(item);
+        // Delegate to ImageService: handles access check, validation, storage and DB updates.
+        // If no file was provided, nothing is changed and the current item state is returned.
+        if (file != null && !file.isEmpty()) {
+            imageService.updateItemImage(id, file, user);
         }
 
-        // Delegate to ImageService: handles validation, storage and DB updates.
-        imageService.updateItemImage(item.getId(), file, user);
+        // Load the item (after the update) to return the most up-to-date state.
+        ItemsEntity refreshed = getWritableItem(id, user);
+        return itemsMapper.toDTO(refreshed);
+    }
 
-        // Reload the item to ensure we return the most up-to-date state.
-        ItemsEntity refreshed = itemsRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("ITEM_NOT_FOUND"));
+    /**
+     * Updates (uploads/replaces) an item image from a raw request body.
+     *
+     * <p>
+     * Validation, access check and storage are delegated to {@link ImageService},
+     * then the item is loaded and returned as the latest DTO representation.
+     * </p>
+     *
+     * @param id item ID
+     * @param content image content
+     * @param contentLength declared length of the content, or -1 when unknown
+     * @param originalName file name sent by the client (may be null)
+     * @param user authenticated user
+     * @return updated item DTO
+     */
+    @Override
+    public ItemsDTO updateItemImage(Long id, InputStream content, long contentLength, String originalName,
+                                    UserEntity user) {
+        imageService.updateItemImage(id, content, contentLength, originalName, user);
 
+        ItemsEntity refreshed = getWritableItem(id, user);
         return itemsMapper.toDTO(refreshed);
     }
 
     /**
-     * Imports a list of items into a given list.
+     * Deletes an item by ID.
      *
      * <p>
-     * This method performs a bulk insert. Each imported DTO is converted to an entity,
-     * connected to the list reference, and saved.
+     * The access check, the list counters, the tombstone, the image record and the item
+     * are all handled by one statement ({@link ItemsRepository#deleteAccessible}).
+     * The stored image file is removed in the background after commit.
+     * Only when nothing was deleted, the item is loaded to tell a missing item from missing access.
      * </p>
      *
      * @param listId ID of the list
-     * @param items items to import
+     * @param id item ID
+     * @param user authenticated user
      */
     @Override
     @Transactional
-    public void importItems(Long listId, List<ItemsDTO> items) {
-        // Nothing to import.
-        if (items == null) return;
-
-        // Get a reference to the list without fully loading it (lazy reference).
-        ListEntity listRef = listRepository.getReferenceById(listId);
-
-        for (ItemsDTO dto : items) {
-            // Convert each DTO to entity.
-            ItemsEntity itemsEntity = itemsMapper.toEntity(dto);
-            // Ensure import creates new records (id must be null).
-            itemsEntity.setId(null);                 // import = nové záznamy (doporučeno)
-            // Assign list and additional fields.
-            itemsEntity.setList(listRef);
-            itemsEntity.setPurchased(dto.isPurchased());
-            // Persist each imported item.
-            itemsRepository.save(itemsEntity);
+    public void removeItem(Long listId, long id, UserEntity user) {
+        if (user == null || user.getId() == null) {
+            throw new ForbiddenException("USER_NOT_LOGGED");
+        }
+
+        ItemDeleteView deleted = itemsRepository.deleteAccessible(listId, id, user.getId()).orElse(null);
+        if (deleted == null) {
+            // Nothing was deleted (or the list adjustment is rolled back by the exception).
+            checkWritableInList(id, listId, user);
+            throw new RuntimeException("ITEM_NOT_FOUND");
         }
+
+        // The file is not needed any more once the delete is committed.
+        imageMetadataService.invalidate(deleted.getImageId());
+        if (deleted.getStoredName() != null) {
+            fileCleanupService.deleteAfterCommit(deleted.getOwnerId(), List.of(deleted.getStoredName()));
+        }
+
+        // Notify subscribers of the list (delivered after commit).
+        eventPublisher.publishEvent(ListChangeEventDTO.items(listId, deleted.getChangeVersion(), List.of(), List.of(id)));
     }
 
     /**
-     * Deletes an item by ID.
+     * Applies several item operations to one list in a single transaction.
      *
      * <p>
-     * This method also deletes an associated image (if present),
-     * and then removes the item record from the database.
+     * Operations are first merged per item in request order (later values win,
+     * operations after a delete of the same item are reported as not found).
+     * The merged changes are then written with set-based statements:
+     * one delete for all removed items (and their images) and one update for all changed items,
+     * without loading the entities.
+     * Finally the counters and change version of the list are adjusted once.
+     * The list row is locked before the items are read, so the counter deltas are computed
+     * from a state no other transaction can change until commit.
      * </p>
      *
-     * @param id item ID
+     * @param listId ID of the list
+     * @param operations operations in the order they should be applied
      * @param user authenticated user
+     * @return one result per operation, in request order
      */
     @Override
     @Transactional
-    public void removeItem(long id, UserEntity user) {
-        // Delete image first (if exists and allowed).
-        imageService.deleteItemImage((long) id, user );
-        // Delete the item entity itself.
-        itemsRepository.delete(item(id));
+    public List<ItemBatchResultDTO> batchUpdate(Long listId, List<ItemBatchOperationDTO> operations, UserEntity user) {
+        // Validate the request before touching the database.
+        validateBatchOperations(operations);
+
+        // One access check for the whole batch.
+        listAccessService.checkWrite(listId, user);
+
+        // The list row is locked before the items are read, so no concurrent change
+        // of the items can make the purchased counter delta computed below wrong.
+        listRepository.lockById(listId)
+                .orElseThrow(() -> new RuntimeException("List " + listId + " nenalezen"));
+
+        // Current state of the requested items that really belong to the list.
+        Set<Long> requestedIds = operations.stream().map(ItemBatchOperationDTO::getId).collect(Collectors.toSet());
+        Map<Long, Boolean> oldPurchased = new LinkedHashMap<>();
+        for (ItemStateView state : itemsRepository.findStatesByListIdAndIdIn(listId, requestedIds)) {
+            oldPurchased.put(state.getId(), state.getPurchased());
+        }
+
+        // Merge operations per item, in request order.
+        List<ItemBatchResultDTO> results = new ArrayList<>(operations.size());
+        Map<Long, PendingItemChange> changes = new LinkedHashMap<>();
+        Set<Long> deleted = new HashSet<>();
+        for (ItemBatchOperationDTO op : operations) {
+            Long id = op.getId();
+            if (!oldPurchased.containsKey(id) || deleted.contains(id)) {
+                results.add(new ItemBatchResultDTO(id, ItemBatchStatus.NOT_FOUND));
+                continue;
+            }
+            if (op.getOp() == ItemBatchOperationType.DELETE) {
+                deleted.add(id);
+                changes.remove(id);
+            } else {
+                changes.computeIfAbsent(id, key -> new PendingItemChange()).apply(op);
+            }
+            results.add(new ItemBatchResultDTO(id, ItemBatchStatus.OK));
+        }
+
+        // Changes that leave the item as it is (e.g. toggled and untoggled again) are not written.
+        changes.entrySet().removeIf(entry -> entry.getValue().isNoOp(oldPurchased.get(entry.getKey())));
+        if (deleted.isEmpty() && changes.isEmpty()) {
+            return results;
+        }
+
+        // Effect of the batch on the purchased counter (deleted purchased items and changed flags).
+        long purchasedDelta = 0;
+        for (Long id : deleted) {
+            if (oldPurchased.get(id)) purchasedDelta--;
+        }
+        for (Map.Entry<Long, PendingItemChange> entry : changes.entrySet()) {
+            Boolean purchased = entry.getValue().purchased;
+            if (purchased != null && !purchased.equals(oldPurchased.get(entry.getKey()))) {
+                purchasedDelta += purchased ? 1 : -1;
+            }
+        }
+
+        // Keep the denormalized item counters of the list in sync; all changes share the new list version.
+        long version = changeList(listId, -deleted.size(), purchasedDelta);
+
+        // Deleted items: tombstones, images (foreign key), then all items in one statement.
+        if (!deleted.isEmpty()) {
+            itemTombstoneRepository.recordDeleted(listId, deleted, version);
+            imageService.deleteItemImages(listId, deleted);
+            itemsRepository.deleteByListIdAndIdIn(listId, deleted);
+        }
+
+        // Changed items: all of them in one statement, one array element per item.
+        if (!changes.isEmpty()) {
+            int size = changes.size();
+            Long[] ids = new Long[size];
+            String[] names = new String[size];
+            Float[] counts = new Float[size];
+            Boolean[] purchased = new Boolean[size];
+            int position = 0;
+            for (Map.Entry<Long, PendingItemChange> entry : changes.entrySet()) {
+                PendingItemChange change = entry.getValue();
+                ids[position] = entry.getKey();
+                names[position] = change.name;
+                counts[position] = change.count;
+                purchased[position] = change.purchased;
+                position++;
+            }
+            itemsRepository.updateFields(listId, ids, names, counts, purchased, version);
+        }
+
+        // Notify subscribers of the list once for the whole batch (delivered after commit).
+        eventPublisher.publishEvent(ListChangeEventDTO.items(listId, version, List.copyOf(changes.keySet()), List.copyOf(deleted)));
+
+        log.debug("Batch of {} operations was applied to list {}", operations.size(), listId);
+        return results;
     }
 
     /**
-     * Helper method to find an item or throw an exception if not found.
+     * Searches items by name across all lists the user can access.
      *
-     * @param id item ID
-     * @return found {@link ItemsEntity}
+     * <p>
+     * The cursor of the next page is the number of already returned results.
+     * One more row than requested is loaded to find out whether another page exists.
+     * </p>
+     *
+     * @param query searched text
+     * @param after cursor of the requested page (null for the first page)
+     * @param size number of items per page (null for the default size)
+     * @param user authenticated user
+     * @return one page of found items
+     * @throws ValidationException if the searched text is too short
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ItemSearchResultDTO> searchItems(String query, String after, Integer size, UserEntity user) {
+        String text = query == null ? "" : query.strip();
+        if (text.length() < searchMinLength) {
+            throw new ValidationException(ValidationErrorCode.SEARCH_QUERY_TOO_SHORT);
+        }
+        int pageSize = size == null ? searchPageSize : Math.max(1, Math.min(size, searchMaxPageSize));
+        long offset = decodeOffset(after);
+
+        // Wildcards typed by the user are searched literally.
+        String pattern = "%" + text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        List<ItemSearchView> found = itemsRepository.searchAccessibleItems(user.getId(), text, pattern, pageSize + 1, offset);
+        List<ItemSearchResultDTO> rows = found.stream()
+                .map(itemsMapper::toSearchResultDTO)
+                .toList();
+
+        if (rows.size() <= pageSize) {
+            return new CursorPageDTO<>(rows, null);
+        }
+        return new CursorPageDTO<>(rows.subList(0, pageSize), encodeOffset(offset + pageSize));
+    }
+
+    /**
+     * Encodes the number of already returned search results into an opaque cursor.
+     *
+     * @param offset number of results before the next page
+     * @return URL-safe cursor string
+     */
+    private static String encodeOffset(long offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encodeOffset(long)}.
+     *
+     * @param cursor cursor sent by the client (may be null or empty)
+     * @return number of results to skip (0 for the first page)
+     * @throws ResponseStatusException with status 400 if the cursor is malformed
+     */
+    private static long decodeOffset(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            long offset = Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            if (offset < 0) throw new IllegalArgumentException();
+            return offset;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Neplatný kurzor stránkování");
+        }
+    }
+
+    /**
+     * Validates the size of a batch and all its operations.
+     *
+     * @param operations operations to validate
+     * @throws ValidationException if the batch is empty, too large or contains an incomplete operation
+     */
+    @Override
+    public void validateBatchOperations(List<ItemBatchOperationDTO> operations) {
+        if (operations == null || operations.isEmpty() || operations.size() > batchMaxOperations) {
+            throw new ValidationException(ValidationErrorCode.ITEM_BATCH_SIZE);
+        }
+        for (ItemBatchOperationDTO op : operations) {
+            validateBatchOperation(op);
+        }
+    }
+
+    /**
+     * Validates one batch operation (type, item ID and values required by the type).
+     *
+     * @param op operation to validate
+     * @throws ValidationException if the operation is incomplete
+     */
+    private void validateBatchOperation(ItemBatchOperationDTO op) {
+        if (op == null || op.getOp() == null || op.getId() == null) {
+            throw new ValidationException(ValidationErrorCode.ITEM_BATCH_OPERATION_INVALID);
+        }
+        if (op.getOp() == ItemBatchOperationType.SET_PURCHASED && op.getPurchased() == null) {
+            throw new ValidationException(ValidationErrorCode.ITEM_BATCH_OPERATION_INVALID);
+        }
+        if (op.getOp() == ItemBatchOperationType.UPDATE) {
+            if (op.getName() != null && op.getName().isBlank()) {
+                throw new ValidationException(ValidationErrorCode.ITEM_NAME_EMPTY);
+            }
+            if (op.getCount() != null && op.getCount() <= 0) {
+                throw new ValidationException(ValidationErrorCode.ITEM_COUNT_EMPTY);
+            }
+        }
+    }
+
+    /**
+     * Changes of one item collected from all batch operations on that item.
+     * {@code null} fields are not changed.
+     */
+    private static final class PendingItemChange {
+        private String name;
+        private Float count;
+        private Boolean purchased;
+
+        /** Applies the values of a SET_PURCHASED or UPDATE operation (later values win). */
+        private void apply(ItemBatchOperationDTO op) {
+            if (op.getOp() == ItemBatchOperationType.UPDATE) {
+                if (op.getName() != null) name = op.getName();
+                if (op.getCount() != null) count = op.getCount();
+            }
+            if (op.getPurchased() != null) purchased = op.getPurchased();
+        }
+
+        /** True if the change writes nothing new (no values, or only the purchased flag the item already has). */
+        private boolean isNoOp(Boolean currentPurchased) {
+            return name == null && count == null && (purchased == null || purchased.equals(currentPurchased));
+        }
+    }
+
+    /**
+     * Adjusts the item counters of a list and returns its new change version.
+     *
+     * @param listId ID of the list
+     * @param itemsDelta change of the number of items
+     * @param purchasedDelta change of the number of purchased items
+     * @return new change version of the list (stored on the changed items or their tombstones)
+     */
+    private long changeList(Long listId, long itemsDelta, long purchasedDelta) {
+        Long version = listRepository.adjustItemCounters(listId, itemsDelta, purchasedDelta);
+        if (version == null) {
+            throw new RuntimeException("List " + listId + " nenalezen");
+        }
+        return version;
+    }
+
+    /**
+     * Verifies that an item belongs to the list and that the user may change its items.
+     *
+     * <p>
+     * Used after a conditional statement changed nothing, to report the reason.
+     * Only the list of the item is loaded (projection), not the entity.
+     * </p>
+     *
+     * @param itemId item ID
+     * @param listId ID of the list the item should belong to
+     * @param user authenticated user
+     * @throws RuntimeException if the item does not exist in the list
+     * @throws ForbiddenException if the user may not change the list
      */
-    private ItemsEntity item(long id) {
-        return itemsRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Položka s ID " + id + " nenalezena"));
+    private void checkWritableInList(Long itemId, Long listId, UserEntity user) {
+        ItemAccessView item = itemsRepository.findAccessById(itemId)
+                .filter(access -> access.getListId().equals(listId))
+                .orElseThrow(() -> new RuntimeException("ITEM_NOT_FOUND"));
+        listAccessService.checkWrite(item.getListId(), user);
     }
 
     /**
-     * Loads an item and verifies that the current user owns the list.
+     * Loads an item and verifies that the current user may change items of its list.
      *
      * <p>
-     * This method is used to protect operations that must be performed
-     * only by the list owner (update/delete/image upload).
+     * This method is used to protect operations that need the item entity
+     * (full update, returning the item after an image upload).
      * </p>
      *
      * @param itemId item ID
      * @param user authenticated user
-     * @return owned item entity
+     * @return item entity the user may modify
      */
-    private ItemsEntity getOwnedItem(Long itemId, UserEntity user) {
+    private ItemsEntity getWritableItem(Long itemId, UserEntity user) {
         // Load item from DB.
         ItemsEntity item = itemsRepository.findById(itemId)
                 .orElseThrow(() -> new RuntimeException("ITEM_NOT_FOUND"));
 
-        // Defensive null checks (avoid NullPointerException).
-        if (user == null || item.getList() == null || item.getList().getOwner() == null) {
-            throw new ForbiddenException("ITEM_NOT_OWNED");
-        }
-
-        // Ownership verification: only list owner is allowed.
-        if (!item.getList().getOwner().getId().equals(user.getId())) {
+        // Defensive null check (avoid NullPointerException).
+        if (item.getList() == null) {
             throw new ForbiddenException("ITEM_NOT_OWNED");
         }
 
+        // Access verification based on the list the item belongs to.
+        listAccessService.checkWrite(item.getList().getId(), user);
         return item;
     }
 }
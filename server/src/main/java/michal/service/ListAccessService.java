@@ -0,0 +1,63 @@
+package michal.service;
+
+import michal.entity.UserEntity;
+
+/**
+ * Service answering the question "may this user read or change this list".
+ *
+ * <p>
+ * It is the single place where access to lists, items and images is decided.
+ * Items and images inherit the access rules of the list they belong to.
+ * </p>
+ *
+ * <p>
+ * Access rules:
+ * <ul>
+ *   <li>the owner and users the list is shared with may read the list and its items</li>
+ *   <li>the owner and users the list is shared with may add, change and remove items</li>
+ *   <li>only the owner may rename, share or delete the list itself</li>
+ * </ul>
+ * </p>
+ */
+public interface ListAccessService {
+
+    /**
+     * Verifies that the user may read the list and its items.
+     *
+     * @param listId ID of the list
+     * @param user authenticated user
+     * @throws michal.service.Exception.ForbiddenException if access is not allowed
+     */
+    void checkRead(Long listId, UserEntity user);
+
+    /**
+     * Verifies that the user may add, change or remove items of the list.
+     *
+     * @param listId ID of the list
+     * @param user authenticated user
+     * @throws michal.service.Exception.ForbiddenException if access is not allowed
+     */
+    void checkWrite(Long listId, UserEntity user);
+
+    /**
+     * Verifies that the user owns the list (required to rename, share or delete it).
+     *
+     * @param listId ID of the list
+     * @param user authenticated user
+     * @throws michal.service.Exception.ForbiddenException if the user is not the owner
+     */
+    void checkOwner(Long listId, UserEntity user);
+
+    /**
+     * Drops cached access information of a user.
+     *
+     * <p>
+     * Must be called whenever the set of lists accessible for the user changes
+     * (list created, deleted or shared). When called inside a transaction,
+     * the entry is dropped again after commit, so no stale state survives.
+     * </p>
+     *
+     * @param userId ID of the user
+     */
+    void invalidate(Long userId);
+}
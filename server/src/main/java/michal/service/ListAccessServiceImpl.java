@@ -0,0 +1,169 @@
+package michal.service;
+
+import michal.entity.UserEntity;
+import michal.entity.repository.AccessibleListView;
+import michal.entity.repository.ListRepository;
+import michal.service.Exception.ForbiddenException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cached implementation of {@link ListAccessService}.
+ *
+ * <p>
+ * For every active user, the IDs of owned and shared lists are loaded by one query
+ * and kept in memory as sorted primitive arrays, so a warm access check is a binary
+ * search without any database round trip. The cache is bounded (least recently used
+ * users are evicted), entries expire after a configurable time and are invalidated
+ * when lists are created, deleted or shared.
+ * </p>
+ */
+@Service
+public class ListAccessServiceImpl implements ListAccessService {
+
+    @Autowired
+    private ListRepository listRepository;
+
+    /** Maximum number of users kept in the cache. */
+    @Value("${app.access.cache-size:10000}")
+    private int cacheSize;
+
+    /** Time after which cached access information is reloaded. */
+    @Value("${app.access.cache-ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    /** Cached access information per user ID, ordered by last access (LRU). */
+    private final Map<Long, AccessibleLists> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, AccessibleLists> eldest) {
+                    return size() > cacheSize;
+                }
+            });
+
+    /**
+     * Incremented on every invalidation. A load that overlaps an invalidation
+     * is not stored, because it may have read the state before the change.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Override
+    public void checkRead(Long listId, UserEntity user) {
+        if (!accessibleLists(user).reaches(listId)) {
+            throw new ForbiddenException("LIST_NOT_ACCESSIBLE");
+        }
+    }
+
+    @Override
+    public void checkWrite(Long listId, UserEntity user) {
+        // Shared users shop from the same list, so they may change its items as well.
+        if (!accessibleLists(user).reaches(listId)) {
+            throw new ForbiddenException("LIST_NOT_ACCESSIBLE");
+        }
+    }
+
+    @Override
+    public void checkOwner(Long listId, UserEntity user) {
+        if (!accessibleLists(user).owns(listId)) {
+            throw new ForbiddenException("LIST_NOT_OWNED");
+        }
+    }
+
+    @Override
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        evict(userId);
+
+        // Evict once more after commit, so a reload during the transaction
+        // cannot keep the state from before the change.
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns cached access information of the user, loading it when missing or expired.
+     *
+     * @param user authenticated user
+     * @return lists accessible for the user
+     */
+    private AccessibleLists accessibleLists(UserEntity user) {
+        if (user == null || user.getId() == null) {
+            throw new ForbiddenException("LIST_NOT_ACCESSIBLE");
+        }
+        Long userId = user.getId();
+
+        AccessibleLists cached = cache.get(userId);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt < cacheTtlSeconds * 1000) {
+            return cached;
+        }
+
+        long stamp = invalidations.get();
+        AccessibleLists loaded = load(userId);
+        if (invalidations.get() == stamp) {
+            cache.put(userId, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Loads IDs of owned and shared lists of a user with a single query.
+     *
+     * @param userId ID of the user
+     * @return access information with sorted ID arrays
+     */
+    private AccessibleLists load(Long userId) {
+        List<AccessibleListView> rows = listRepository.findAccessibleListIds(userId);
+        long[] owned = rows.stream()
+                .filter(row -> Boolean.TRUE.equals(row.getOwned()))
+                .mapToLong(AccessibleListView::getListId)
+                .sorted()
+                .toArray();
+        long[] shared = rows.stream()
+                .filter(row -> !Boolean.TRUE.equals(row.getOwned()))
+                .mapToLong(AccessibleListView::getListId)
+                .sorted()
+                .toArray();
+        return new AccessibleLists(owned, shared, System.currentTimeMillis());
+    }
+
+    private void evict(Long userId) {
+        invalidations.incrementAndGet();
+        cache.remove(userId);
+    }
+
+    /**
+     * Immutable set of lists accessible for one user.
+     *
+     * @param owned sorted IDs of lists owned by the user
+     * @param shared sorted IDs of lists shared with the user
+     * @param loadedAt time of loading in milliseconds
+     */
+    private record AccessibleLists(long[] owned, long[] shared, long loadedAt) {
+
+        boolean owns(Long listId) {
+            return listId != null && Arrays.binarySearch(owned, listId) >= 0;
+        }
+
+        boolean reaches(Long listId) {
+            return owns(listId) || (listId != null && Arrays.binarySearch(shared, listId) >= 0);
+        }
+    }
+}
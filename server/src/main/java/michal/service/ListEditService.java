@@ -0,0 +1,61 @@
+package michal.service;
+
+import michal.dto.ItemBatchOperationDTO;
+import michal.entity.UserEntity;
+
+import java.util.List;
+
+/**
+ * Service for write-behind editing of items (WebSocket edits and, when enabled, batch REST edits).
+ *
+ * <p>
+ * Operations are not written immediately. They are collected per list, redundant
+ * operations on the same item are merged and the result is written by a single writer
+ * of the list as one batch. Clients learn about the written result from the change events
+ * of the list ({@link michal.dto.ListChangeEventDTO}).
+ * </p>
+ *
+ * <p>
+ * Reads and direct writes of a list call {@link #flush(Long, UserEntity)} first, so they never see
+ * (or get overwritten by) operations that are still waiting.
+ * </p>
+ *
+ * <p>
+ * Accepted operations are never dropped silently: a batch that cannot be written is retried,
+ * and one that is finally rejected is reported to its submitter
+ * ({@link michal.dto.ListEditRejectedEventDTO}).
+ * </p>
+ */
+public interface ListEditService {
+
+    /**
+     * Validates operations, checks write access and queues them for the next write of the list.
+     *
+     * @param listId ID of the list
+     * @param operations operations in the order they were made
+     * @param user authenticated user
+     */
+    void submit(Long listId, List<ItemBatchOperationDTO> operations, UserEntity user);
+
+    /**
+     * Writes the pending operations of a list now and waits until they are written.
+     *
+     * <p>
+     * Read access of the user is checked first. Returns immediately when nothing is pending for the list.
+     * When a pending batch cannot be written now and stays queued for a later attempt, the caller must not
+     * continue, so an exception is thrown instead of returning.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @param user authenticated user
+     * @throws michal.service.Exception.ServiceUnavailableException if queued edits could not be written yet
+     */
+    void flush(Long listId, UserEntity user);
+
+    /**
+     * Tells whether batch item requests of the REST API are queued as well (write-behind mode).
+     *
+     * @return true if REST batch edits are written behind, false if they are written immediately
+     */
+    boolean isWriteBehind();
+}
@@ -0,0 +1,351 @@
+package michal.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import michal.dto.ItemBatchOperationDTO;
+import michal.dto.ListEditRejectedEventDTO;
+import michal.entity.UserEntity;
+import michal.entity.enumy.ItemBatchOperationType;
+import michal.service.Exception.ForbiddenException;
+import michal.service.Exception.ServiceUnavailableException;
+import michal.service.Exception.ValidationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link ListEditService} implementation with one coalescing write-behind queue per list.
+ *
+ * <p>
+ * The first operation for a list schedules a write after {@code app.items.edit.flush-millis}.
+ * Until then, operations on the same item are merged into one (a later value wins,
+ * a delete replaces everything before it), so e.g. toggling an item on and off again
+ * ends as one unchanged flag, which {@link ItemsService#batchUpdate} does not write at all.
+ * The pending operations are then written through {@link ItemsService#batchUpdate}
+ * as one transaction with one list version and one change event.
+ * Writes of one list never run in parallel (single writer per list).
+ * </p>
+ *
+ * <p>
+ * Operations keep their submitter: only consecutive operations of the same user are merged,
+ * and every batch is written (and its write access checked again) as that user.
+ * </p>
+ *
+ * <p>
+ * A batch that fails is not dropped. It stays first in the queue and is retried with a growing
+ * delay, up to {@code app.items.edit.max-attempts}. A batch that is rejected (access revoked,
+ * invalid operation) or still fails after the last attempt is reported to its submitter
+ * with a {@link ListEditRejectedEventDTO}.
+ * </p>
+ *
+ * <p>
+ * Correctness relies on two barriers: {@link #flush(Long, UserEntity)} before every read or direct write
+ * of a list, and a flush of all queues when the application stops. The first barrier never lets the
+ * caller continue while operations are still pending: if a batch fails and will be retried, it throws
+ * a {@link ServiceUnavailableException} instead, so the read or write fails rather than missing
+ * (or overtaking) edits that were already accepted.
+ * </p>
+ */
+@Service
+public class ListEditServiceImpl implements ListEditService {
+
+    private static final Logger log = LoggerFactory.getLogger(ListEditServiceImpl.class);
+
+    @Autowired
+    private ItemsService itemsService;
+
+    @Autowired
+    private ListAccessService listAccessService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /** How long operations of a list are collected before they are written. */
+    @Value("${app.items.edit.flush-millis:150}")
+    private long flushMillis;
+
+    /** Number of threads writing queued operations. */
+    @Value("${app.items.edit.writer-threads:2}")
+    private int writerThreads;
+
+    /** How many times a failing batch is written before it is given up and reported. */
+    @Value("${app.items.edit.max-attempts:5}")
+    private int maxAttempts;
+
+    /** Whether batch item requests of the REST API are queued too (opt-in write-behind mode). */
+    @Value("${app.items.edit.write-behind:false}")
+    private boolean writeBehind;
+
+    /** Maximum size of one written batch (pending operations above it are written at once). */
+    @Value("${app.items.batch-max-operations:500}")
+    private int batchMaxOperations;
+
+    /** Queues of lists with pending operations. */
+    private final Map<Long, ListEditQueue> queues = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService writer;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger counter = new AtomicInteger();
+        writer = Executors.newScheduledThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "list-edit-writer-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // Write what is still pending before the application stops.
+        writer.shutdown();
+        writer.awaitTermination(10, TimeUnit.SECONDS);
+        queues.values().forEach(ListEditQueue::flush);
+    }
+
+    /**
+     * Validates operations, checks write access and queues them for the next write of the list.
+     *
+     * @param listId ID of the list
+     * @param operations operations in the order they were made
+     * @param user authenticated user
+     */
+    @Override
+    public void submit(Long listId, List<ItemBatchOperationDTO> operations, UserEntity user) {
+        itemsService.validateBatchOperations(operations);
+        listAccessService.checkWrite(listId, user);
+
+        // A queue removed by its last write in the meantime is replaced by a new one.
+        while (!queues.computeIfAbsent(listId, ListEditQueue::new).add(operations, user)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Checks read access and writes the pending operations of a list now (read barrier).
+     *
+     * <p>
+     * If a scheduled write of the list is running, this waits for it (single writer per list),
+     * so the caller always reads data that include every operation submitted before.
+     * Operations that were rejected are already reported to their submitter and no longer pending.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @param user authenticated user
+     * @throws ServiceUnavailableException if a batch failed and stays queued for the next attempt
+     */
+    @Override
+    public void flush(Long listId, UserEntity user) {
+        // Only users who may read the list can make its pending operations be written.
+        listAccessService.checkRead(listId, user);
+
+        ListEditQueue queue = queues.get(listId);
+        if (queue != null && !queue.writePending()) {
+            throw new ServiceUnavailableException("EDITS_PENDING");
+        }
+    }
+
+    @Override
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Merges a later operation on an item into the pending one.
+     *
+     * @param pending operation already waiting for the write
+     * @param next later operation on the same item
+     * @return one operation with the combined effect
+     */
+    private static ItemBatchOperationDTO coalesce(ItemBatchOperationDTO pending, ItemBatchOperationDTO next) {
+        // A delete makes all other operations on the item pointless.
+        if (pending.getOp() == ItemBatchOperationType.DELETE || next.getOp() == ItemBatchOperationType.DELETE) {
+            return new ItemBatchOperationDTO(ItemBatchOperationType.DELETE, pending.getId(), null, null, null);
+        }
+        String name = next.getName() != null ? next.getName() : pending.getName();
+        Float count = next.getCount() != null ? next.getCount() : pending.getCount();
+        Boolean purchased = next.getPurchased() != null ? next.getPurchased() : pending.getPurchased();
+        ItemBatchOperationType op = name == null && count == null && purchased != null
+                ? ItemBatchOperationType.SET_PURCHASED
+                : ItemBatchOperationType.UPDATE;
+        return new ItemBatchOperationDTO(op, pending.getId(), purchased, name, count);
+    }
+
+    /**
+     * Merged operations of one submitter (consecutive submissions of the same user).
+     */
+    private static final class PendingBatch {
+        private final UserEntity user;
+        /** Pending operation per item ID, in order of the first operation. */
+        private final Map<Long, ItemBatchOperationDTO> operations = new LinkedHashMap<>();
+        private int submitted;
+        private int attempts;
+
+        private PendingBatch(UserEntity user) {
+            this.user = user;
+        }
+
+        private boolean isFrom(UserEntity other) {
+            return Objects.equals(user.getId(), other.getId());
+        }
+    }
+
+    /**
+     * Pending operations of one list and its write schedule.
+     */
+    private final class ListEditQueue {
+        private final Long listId;
+        /** Pending batches in submission order (guarded by this). */
+        private final Deque<PendingBatch> pending = new ArrayDeque<>();
+        /** Serializes writes of this list. */
+        private final Object writeLock = new Object();
+        private boolean scheduled;
+        private boolean retired;
+
+        private ListEditQueue(Long listId) {
+            this.listId = listId;
+        }
+
+        /**
+         * Merges operations into the pending ones of the same user and schedules a write.
+         *
+         * @return false if the queue was already removed (the caller uses a new one)
+         */
+        private synchronized boolean add(List<ItemBatchOperationDTO> operations, UserEntity user) {
+            if (retired) return false;
+            // Operations of another user start a new batch, so they are never written as someone else.
+            PendingBatch batch = pending.peekLast();
+            if (batch == null || !batch.isFrom(user)) {
+                batch = new PendingBatch(user);
+                pending.addLast(batch);
+            }
+            for (ItemBatchOperationDTO op : operations) {
+                batch.operations.merge(op.getId(), op, ListEditServiceImpl::coalesce);
+            }
+            batch.submitted += operations.size();
+
+            if (batch.operations.size() >= batchMaxOperations) {
+                scheduled = true;
+                writer.execute(this::flush);
+            } else if (!scheduled) {
+                schedule(flushMillis);
+            }
+            return true;
+        }
+
+        /** Writes all pending batches on the writer pool (a failed batch is retried later). */
+        private void flush() {
+            writePending();
+        }
+
+        /**
+         * Writes all pending batches (on the writer pool, or on the caller thread as a barrier).
+         *
+         * @return true if every batch was written or rejected, false if a failed batch stays queued
+         */
+        private boolean writePending() {
+            synchronized (writeLock) {
+                List<PendingBatch> batches;
+                synchronized (this) {
+                    scheduled = false;
+                    batches = new ArrayList<>(pending);
+                    pending.clear();
+                }
+
+                try {
+                    for (int i = 0; i < batches.size(); i++) {
+                        PendingBatch batch = batches.get(i);
+                        try {
+                            write(batch);
+                        } catch (ForbiddenException e) {
+                            // The submitter lost write access: retrying cannot help.
+                            reject(batch, "FORBIDDEN");
+                        } catch (ValidationException e) {
+                            reject(batch, e.getCode().name());
+                        } catch (RuntimeException e) {
+                            if (++batch.attempts >= maxAttempts) {
+                                reject(batch, "EDITS_NOT_WRITTEN");
+                            } else {
+                                // Later batches wait too, so the operations are still written in order.
+                                return !retry(batches.subList(i, batches.size()), e);
+                            }
+                        }
+                    }
+                    return true;
+                } finally {
+                    retireIfIdle();
+                }
+            }
+        }
+
+        /** Writes one batch as its submitter (operations set values, so a repeated write is harmless). */
+        private void write(PendingBatch batch) {
+            List<ItemBatchOperationDTO> operations = new ArrayList<>(batch.operations.values());
+            for (int from = 0; from < operations.size(); from += batchMaxOperations) {
+                int to = Math.min(from + batchMaxOperations, operations.size());
+                itemsService.batchUpdate(listId, operations.subList(from, to), batch.user);
+            }
+            if (!operations.isEmpty()) {
+                log.debug("{} edits of list {} were written as {} operations", batch.submitted, listId, operations.size());
+            }
+        }
+
+        /**
+         * Puts failed batches back before the newer ones and schedules the next attempt.
+         *
+         * @return true if the batches were queued again, false if they were rejected
+         */
+        private synchronized boolean retry(List<PendingBatch> failed, RuntimeException error) {
+            if (writer.isShutdown()) {
+                // No later attempt is possible when the application stops.
+                failed.forEach(batch -> reject(batch, "EDITS_NOT_WRITTEN"));
+                return false;
+            }
+            for (int i = failed.size() - 1; i >= 0; i--) {
+                pending.addFirst(failed.get(i));
+            }
+            int attempts = failed.get(0).attempts;
+            log.warn("Edits of list {} were not written (attempt {}), retrying", listId, attempts, error);
+            if (!scheduled) {
+                schedule(flushMillis << Math.min(attempts, 10));
+            }
+            return true;
+        }
+
+        /** Tells the submitter that the batch was not written. */
+        private void reject(PendingBatch batch, String code) {
+            log.debug("{} edits of list {} were rejected: {}", batch.operations.size(), listId, code);
+            eventPublisher.publishEvent(new ListEditRejectedEventDTO(
+                    listId, batch.user.getId(), code, List.copyOf(batch.operations.keySet())));
+        }
+
+        private void schedule(long delayMillis) {
+            scheduled = true;
+            writer.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        /** Removes the queue when nothing is pending, so idle lists do not keep a queue. */
+        private synchronized void retireIfIdle() {
+            if (pending.isEmpty() && !scheduled) {
+                retired = true;
+                queues.remove(listId, this);
+            }
+        }
+    }
+}
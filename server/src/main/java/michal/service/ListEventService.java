@@ -0,0 +1,45 @@
+package michal.service;
+
+import michal.dto.ListChangeEventDTO;
+import michal.dto.ListEditRejectedEventDTO;
+import michal.entity.UserEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Service for pushing changes of lists to connected clients (Server-Sent Events).
+ *
+ * <p>
+ * Services publish {@link ListChangeEventDTO} through the Spring application event
+ * publisher; the events are delivered only after the transaction commits.
+ * </p>
+ */
+public interface ListEventService {
+
+    /**
+     * Opens an event stream for a list.
+     *
+     * <p>
+     * The user must be allowed to read the list. The first event ({@code ready})
+     * contains the current change version of the list.
+     * </p>
+     *
+     * @param listId ID of the list
+     * @param user authenticated user
+     * @return emitter bound to the HTTP response
+     */
+    SseEmitter subscribe(Long listId, UserEntity user);
+
+    /**
+     * Delivers a committed change to all subscribers of the list.
+     *
+     * @param event change of the list
+     */
+    void onListChange(ListChangeEventDTO event);
+
+    /**
+     * Delivers rejected queued edits to the subscribers of the user who submitted them.
+     *
+     * @param event rejected edits of the list
+     */
+    void onEditRejected(ListEditRejectedEventDTO event);
+}
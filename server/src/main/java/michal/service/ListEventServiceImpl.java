@@ -0,0 +1,384 @@
+package michal.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import michal.dto.ListChangeEventDTO;
+import michal.dto.ListEditRejectedEventDTO;
+import michal.entity.UserEntity;
+import michal.entity.enumy.ListChangeType;
+import michal.entity.repository.ListRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory implementation of {@link ListEventService}.
+ *
+ * <p>
+ * Each connection is an asynchronous {@link SseEmitter}, so an idle connection does not hold
+ * a servlet worker thread. Events are put into a bounded queue per connection and written
+ * by a small shared dispatcher pool; the publishing (committing) thread never waits for a client.
+ * A connection whose queue overflows is a slow consumer and is closed (the browser
+ * {@code EventSource} reconnects and catches up with the delta sync).
+ * A heartbeat comment is queued periodically, which keeps proxies from closing idle streams
+ * and detects dead connections on the next write.
+ * </p>
+ *
+ * <p>
+ * Writes are blocking, so a client that stops reading without closing its connection blocks
+ * the dispatcher thread writing to it until the connector's write timeout. A connection whose
+ * write has been blocked for longer than {@code app.events.send-timeout-seconds} is therefore
+ * evicted (it gets no more events and its slot is freed), and the dispatcher gets one more thread
+ * until that write ends, so the other streams keep receiving events.
+ * </p>
+ *
+ * <p>
+ * Subscribers are kept in the memory of this instance; events of other instances are not delivered.
+ * </p>
+ */
+@Service
+public class ListEventServiceImpl implements ListEventService {
+
+    @Autowired
+    private ListAccessService listAccessService;
+
+    @Autowired
+    private ListRepository listRepository;
+
+    /** Maximum number of undelivered events per connection before it is closed. */
+    @Value("${app.events.queue-size:64}")
+    private int queueSize;
+
+    /** Interval of heartbeat comments. */
+    @Value("${app.events.heartbeat-seconds:25}")
+    private long heartbeatSeconds;
+
+    /** Lifetime of one stream; the client reconnects afterwards. */
+    @Value("${app.events.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    /** Maximum number of open streams of this instance. */
+    @Value("${app.events.max-connections:10000}")
+    private int maxConnections;
+
+    /** Number of threads writing events to connections. */
+    @Value("${app.events.dispatcher-threads:4}")
+    private int dispatcherThreads;
+
+    /** How long one write may be blocked before the connection is evicted. */
+    @Value("${app.events.send-timeout-seconds:10}")
+    private long sendTimeoutSeconds;
+
+    /** Open connections per list ID. */
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    /** Connections with a write in progress (also closed ones whose write has not ended yet). */
+    private final Set<Subscriber> writing = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor dispatcher;
+
+    /** Number of dispatcher threads blocked in writes of evicted connections (guarded by dispatcher). */
+    private int blockedThreads;
+
+    private ScheduledExecutorService heartbeat;
+
+    @PostConstruct
+    void start() {
+        dispatcher = new ThreadPoolExecutor(dispatcherThreads, dispatcherThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), daemon("list-events-"));
+        heartbeat = Executors.newSingleThreadScheduledExecutor(daemon("list-events-heartbeat-"));
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        heartbeat.scheduleAtFixedRate(this::evictBlocked, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        heartbeat.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(Subscriber::close));
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Opens an event stream for a list after checking read access.
+     *
+     * @param listId ID of the list
+     * @param user authenticated user
+     * @return emitter bound to the HTTP response
+     */
+    @Override
+    public SseEmitter subscribe(Long listId, UserEntity user) {
+        listAccessService.checkRead(listId, user);
+        long version = listRepository.findChangeVersion(listId)
+                .orElseThrow(() -> new RuntimeException("List " + listId + " nenalezen"));
+
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Příliš mnoho otevřených spojení");
+        }
+
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        Subscriber subscriber = new Subscriber(listId, user.getId(), emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        subscribers.computeIfAbsent(listId, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        // The client starts from this version (and loads older changes with the delta sync).
+        subscriber.offer(SseEmitter.event().name("ready").data(
+                ListChangeEventDTO.list(listId, version, null)));
+        return emitter;
+    }
+
+    /**
+     * Delivers a change to all subscribers of the list once the publishing transaction commits.
+     *
+     * @param event change of the list
+     */
+    @Override
+    @TransactionalEventListener
+    public void onListChange(ListChangeEventDTO event) {
+        Set<Subscriber> listeners = subscribers.get(event.getListId());
+        if (listeners == null) return;
+
+        for (Subscriber subscriber : listeners) {
+            subscriber.offer(SseEmitter.event().name("change").id(Long.toString(event.getVersion())).data(event));
+            if (event.getType() == ListChangeType.LIST_DELETED) {
+                subscriber.closeAfterDrain();
+            }
+        }
+    }
+
+    /**
+     * Tells the subscribers of a user that their queued edits of the list were not written.
+     *
+     * @param event rejected edits of the list
+     */
+    @Override
+    @EventListener
+    public void onEditRejected(ListEditRejectedEventDTO event) {
+        Set<Subscriber> listeners = subscribers.get(event.getListId());
+        if (listeners == null) return;
+
+        for (Subscriber subscriber : listeners) {
+            if (event.getUserId().equals(subscriber.userId)) {
+                subscriber.offer(SseEmitter.event().name("rejected").data(event));
+            }
+        }
+    }
+
+    /** Queues a heartbeat comment to every connection. */
+    private void sendHeartbeat() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.offer(SseEmitter.event().comment("ping"))));
+    }
+
+    /** Evicts connections whose current write has been blocked for longer than the send timeout. */
+    private void evictBlocked() {
+        long deadline = System.nanoTime() - TimeUnit.SECONDS.toNanos(sendTimeoutSeconds);
+        writing.forEach(subscriber -> subscriber.evictIfBlockedSince(deadline));
+    }
+
+    /**
+     * Changes the number of dispatcher threads blocked in writes of evicted connections;
+     * the pool keeps {@code dispatcherThreads} threads for the other connections.
+     */
+    private void resizeDispatcher(int blockedDelta) {
+        synchronized (dispatcher) {
+            blockedThreads += blockedDelta;
+            int size = dispatcherThreads + blockedThreads;
+            // The maximum size must never be below the core size.
+            if (blockedDelta > 0) {
+                dispatcher.setMaximumPoolSize(size);
+                dispatcher.setCorePoolSize(size);
+            } else {
+                dispatcher.setCorePoolSize(size);
+                dispatcher.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * One open stream with its bounded queue of undelivered events.
+     */
+    private final class Subscriber {
+        private final Long listId;
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean completeWhenDrained;
+        /** Start of the write in progress ({@link System#nanoTime()}), or 0 when nothing is written (guarded by this). */
+        private long sendingSince;
+        /** The connection was closed during a write; the drain completes it when the write ends (guarded by this). */
+        private boolean completeAfterWrite;
+        /** The dispatcher got an extra thread for the blocked write of this connection (guarded by this). */
+        private boolean extraThread;
+
+        private Subscriber(Long listId, Long userId, SseEmitter emitter) {
+            this.listId = listId;
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        /** Queues an event without blocking; a full queue closes the connection. */
+        private void offer(SseEventBuilder event) {
+            if (closed.get()) return;
+            if (!queue.offer(event)) {
+                // Slow consumer: drop the connection instead of buffering without limit.
+                close();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void closeAfterDrain() {
+            completeWhenDrained = true;
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        /** Writes all queued events (runs on the dispatcher pool, one drain per connection at a time). */
+        private void drain() {
+            try {
+                SseEventBuilder event;
+                while (!closed.get() && (event = queue.poll()) != null) {
+                    markSending(System.nanoTime());
+                    emitter.send(event);
+                    markSending(0);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client is gone (or the emitter already completed).
+                markSending(0);
+                close();
+                return;
+            } finally {
+                boolean completeNow;
+                boolean releaseThread;
+                writing.remove(this);
+                synchronized (this) {
+                    sendingSince = 0;
+                    completeNow = completeAfterWrite;
+                    releaseThread = extraThread;
+                    completeAfterWrite = false;
+                    extraThread = false;
+                }
+                if (completeNow) {
+                    // The connection was closed while the write was blocked.
+                    complete();
+                }
+                if (releaseThread) {
+                    resizeDispatcher(-1);
+                }
+                draining.set(false);
+            }
+            if (completeWhenDrained && queue.isEmpty()) {
+                close();
+            } else if (!queue.isEmpty()) {
+                // An event arrived after the last poll.
+                scheduleDrain();
+            }
+        }
+
+        /** Records the start (or the end, with 0) of a write. */
+        private synchronized void markSending(long since) {
+            sendingSince = since;
+            if (since != 0) {
+                writing.add(this);
+            }
+        }
+
+        /**
+         * Evicts the connection if its current write started before the deadline;
+         * the dispatcher has one more thread until that write ends.
+         */
+        private void evictIfBlockedSince(long deadline) {
+            synchronized (this) {
+                if (sendingSince == 0 || sendingSince - deadline > 0 || extraThread) return;
+                extraThread = true;
+            }
+            resizeDispatcher(1);
+            close();
+        }
+
+        /** Closes the connection and removes it from the registry (idempotent). */
+        private void close() {
+            if (unregister() && !deferCompletion()) {
+                complete();
+            }
+        }
+
+        /**
+         * Completing the emitter waits for a write in progress, so during a write
+         * the completion is left to the drain (the caller, e.g. a publishing thread, never waits).
+         *
+         * @return true if the drain completes the emitter when the write ends
+         */
+        private synchronized boolean deferCompletion() {
+            if (sendingSince == 0) return false;
+            completeAfterWrite = true;
+            return true;
+        }
+
+        /**
+         * Stops delivery to the connection and frees its slot.
+         *
+         * @return false if the connection was already closed
+         */
+        private boolean unregister() {
+            if (!closed.compareAndSet(false, true)) return false;
+            connections.decrementAndGet();
+            subscribers.computeIfPresent(listId, (key, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            });
+            queue.clear();
+            return true;
+        }
+
+        private void complete() {
+            try {
+                emitter.complete();
+            } catch (RuntimeException ignored) {
+                // Already completed by the container.
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package michal.service;
 
+import michal.dto.CursorPageDTO;
 import michal.dto.ListDTO;
+import michal.dto.ListSummaryDTO;
 import org.springframework.http.ResponseEntity;
 
 import java.util.List;
@@ -27,11 +29,13 @@ public interface ListService {
     ResponseEntity<Void> importList(List<ListDTO> guestList);
 
     /**
-     * Returns all lists belonging to the current user.
+     * Returns one page of summaries of lists accessible for the current user.
      *
-     * @return list of user's lists
+     * @param after opaque cursor returned as {@code next} by the previous page, or null for the first page
+     * @param size requested page size, or null for the default size
+     * @return page of user's lists with item totals and the cursor of the next page
      */
-    List<ListDTO> getAllByOwner();
+    CursorPageDTO<ListSummaryDTO> getAllByOwner(String after, Integer size);
 
     /**
      * Updates an existing shopping list.
@@ -56,6 +60,19 @@ public interface ListService {
      */
     ListDTO getListWithItems(Long id);
 
+    /**
+     * Returns the change version of a shopping list.
+     *
+     * <p>
+     * The version changes whenever the list or any of its items changes,
+     * so it can be used as an ETag for conditional requests.
+     * </p>
+     *
+     * @param id list ID
+     * @return current change version of the list
+     */
+    long getChangeVersion(Long id);
+
     /**
      * Shares a shopping list with another user identified by email.
      *
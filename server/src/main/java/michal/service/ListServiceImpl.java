@@ -1,19 +1,34 @@
 package michal.service;
 
+import michal.dto.CursorPageDTO;
+import michal.dto.ListChangeEventDTO;
 import michal.dto.ListDTO;
+import michal.dto.ListSummaryDTO;
+import michal.dto.ItemsDTO;
+import michal.dto.mapper.ItemsMapper;
 import michal.dto.mapper.ListMapper;
 import michal.dto.mapper.SharedListMapper;
+import michal.entity.ItemsEntity;
 import michal.entity.ListEntity;
 import michal.entity.SharedListEntity;
 import michal.entity.UserEntity;
+import michal.entity.enumy.ListChangeType;
 import michal.entity.enumy.ValidationErrorCode;
-import michal.entity.repository.ItemsRepository;
+import michal.entity.repository.ImageRepository;
 import michal.entity.repository.ListRepository;
+import michal.entity.repository.ListSummaryView;
 import michal.entity.repository.SharedListRepository;
 import michal.entity.repository.UserRepository;
 import michal.service.Exception.UserNotLoggedException;
 import michal.service.Exception.ValidationException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -22,6 +37,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 
 /**
@@ -36,6 +54,8 @@ import java.util.List;
 @Service
 public class ListServiceImpl implements ListService {
 
+    private static final Logger log = LoggerFactory.getLogger(ListServiceImpl.class);
+
     @Autowired
     private ListRepository listRepository;
 
@@ -45,9 +65,6 @@ public class ListServiceImpl implements ListService {
     @Autowired
     private UserRepository userRepository;
 
-    @Autowired
-    private ItemsRepository itemsRepository;
-
     @Autowired
     private SharedListMapper sharedListMapper;
 
@@ -55,7 +72,48 @@ public class ListServiceImpl implements ListService {
     private SharedListRepository sharedListRepository;
 
     @Autowired
-    private ItemsService itemsService;
+    private ListAccessService listAccessService;
+
+    @Autowired
+    private ItemsMapper itemsMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private FileCleanupService fileCleanupService;
+
+    @Autowired
+    private ImageMetadataService imageMetadataService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /** Number of imported lists after which the persistence context is flushed and cleared. */
+    @Value("${app.list.import-flush-size:10}")
+    private int importFlushSize;
+
+    /** Gap between the sort keys of two neighbouring items. */
+    @Value("${app.items.position-step:1024}")
+    private long positionStep;
+
+    /** Number of lists returned in one page when the client does not ask for a size. */
+    @Value("${app.list.page-size:50}")
+    private int defaultPageSize;
+
+    /** Upper bound for the page size requested by the client. */
+    @Value("${app.list.max-page-size:200}")
+    private int maxPageSize;
+
+    /**
+     * Query used for the list overview: "union" (owned UNION ALL shared branches)
+     * or "exists" (single scan of lists with an exists subquery for shared access).
+     */
+    @Value("${app.list.query-strategy:union}")
+    private String queryStrategy;
 
     /**
      * Creates a new shopping list and assigns it to the currently logged-in user.
@@ -71,16 +129,7 @@ public class ListServiceImpl implements ListService {
     @Override
     @Transactional
     public ListDTO addList(ListDTO listDTO) {
-        // Read authentication information for the current request/thread.
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-
-        // Basic authentication check (prevent anonymous access).
-        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getPrincipal())) {
-            throw new UserNotLoggedException("Uživatel není přihlášen");
-        }
-
-        // Principal is expected to be UserEntity in this application.
-        UserEntity user = (UserEntity) auth.getPrincipal();
+        UserEntity user = currentUser();
 
         // Convert incoming DTO to JPA entity and assign the owner.
         ListEntity listEntity = listMapper.toEntity(listDTO);
@@ -93,6 +142,9 @@ public class ListServiceImpl implements ListService {
         // Persist the list.
         ListEntity saved = listRepository.save(listEntity);
 
+        // The owner can access one more list now.
+        listAccessService.invalidate(user.getId());
+
         // Debug log (useful during development).
         System.out.println("List: " + saved.getName() + ", ID " + saved.getId() + " was saved");
         // Return DTO back to controller layer.
@@ -103,9 +155,10 @@ public class ListServiceImpl implements ListService {
      * Returns a shopping list with its items.
      *
      * <p>
-     * This method loads the list entity and maps it to {@link ListDTO}.
-     * The actual loading of items depends on the JPA relationship settings
-     * (lazy/eager) and the mapper implementation.
+     * This method verifies read access (owner or shared user), loads the list entity
+     * and maps it to {@link ListDTO}.
+     * The list, its owner, items and item images are loaded by a single statement
+     * (see {@link ListRepository#findWithItemsById(Long)}), independent of the number of items.
      * </p>
      *
      * @param id list ID
@@ -114,11 +167,34 @@ public class ListServiceImpl implements ListService {
     @Override
     @Transactional(readOnly = true)
     public ListDTO getListWithItems(Long id) {
+        listAccessService.checkRead(id, currentUser());
+
+        // Load the list with items and images using one fetch plan (no lazy loading per item).
+        ListEntity list = listRepository.findWithItemsById(id)
+                .orElseThrow(() -> new RuntimeException("List " + id + " nenalezen"));
+
         // Debug log for tracking list requests.
         System.out.println("List with ID " + id + " was loaded");
-        return listMapper.toDTO(list(id));
+        return listMapper.toDTO(list);
     }
 
+    /**
+     * Returns the change version of a shopping list.
+     *
+     * <p>
+     * Access is checked by the cached access evaluator and the version is read
+     * with a single-column query, so answering a conditional request does not load items.
+     * </p>
+     *
+     * @param id list ID
+     * @return current change version of the list
+     */
+    @Override
+    public long getChangeVersion(Long id) {
+        listAccessService.checkRead(id, currentUser());
+        return listRepository.findChangeVersion(id)
+                .orElseThrow(() -> new RuntimeException("List " + id + " nenalezen"));
+    }
 
     /**
      * Shares an existing shopping list with another user.
@@ -130,8 +206,8 @@ public class ListServiceImpl implements ListService {
      * </p>
      *
      * <p>
-     * It also prevents duplicate sharing by checking if a relation
-     * already exists for the same list and user.
+     * Only the owner of the list may share it. The method also prevents
+     * duplicate sharing by checking if a relation already exists for the same list and user.
      * </p>
      *
      * @param listId ID of the list that should be shared
@@ -141,6 +217,9 @@ public class ListServiceImpl implements ListService {
     @Override
     @Transactional
     public void shareList(Long listId, String email){
+        // Only the owner may share the list.
+        listAccessService.checkOwner(listId, currentUser());
+
         // Load the list to be shared; fail if it does not exist.
         ListEntity list = listRepository.findById(listId)
                 .orElseThrow(() -> new RuntimeException("Seznam nenalezen"));
@@ -159,6 +238,7 @@ public class ListServiceImpl implements ListService {
 
         // Save the relation so the user gains access to the list.
         sharedListRepository.save(sharedList);
+        listAccessService.invalidate(userToShare.getId());
 
         // Debug log (useful during development).
         System.out.println("List with ID " + sharedList.getId() + " was shared to user with email " + email);
@@ -173,22 +253,22 @@ public class ListServiceImpl implements ListService {
      * import them into the database after login/registration.
      * </p>
      *
+     * <p>
+     * Lists and their items are persisted together (cascade) with their item counters
+     * already set, so no update statements are needed. Inserts are sent in JDBC batches and IDs
+     * come from pooled sequences; the persistence context is flushed and cleared every
+     * {@code app.list.import-flush-size} lists to keep memory usage flat for large imports.
+     * </p>
+     *
      * @param guestList list of guest lists
      * @return HTTP response with result
      */
     @Override
     @Transactional
     public ResponseEntity<Void> importList(List<ListDTO> guestList) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-
-        // If user is not authenticated, return 401 response.
-        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getPrincipal())) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        }
-
-        UserEntity user = (UserEntity) auth.getPrincipal();
+        UserEntity user = currentUser();
 
-        // Reassign guest lists to the logged-in user and persist them.
+        int imported = 0;
         for (ListDTO guest : guestList) {
             ListEntity entity = listMapper.toEntity(guest);
 
@@ -197,65 +277,92 @@ public class ListServiceImpl implements ListService {
 
             // Assign current user as owner.
             entity.setOwner(user);
-            ListEntity saved = listRepository.save(entity);
 
-            // If the imported list contains items, import them as well.
-            if(guest.getItems() !=null && !guest.getItems().isEmpty()){
-                itemsService.importItems(saved.getId(), guest.getItems());
+            // Attach the imported items; they are inserted together with the list (cascade).
+            List<ItemsEntity> items = new ArrayList<>();
+            long purchased = 0;
+            if (guest.getItems() != null) {
+                for (ItemsDTO dto : guest.getItems()) {
+                    ItemsEntity item = itemsMapper.toEntity(dto);
+                    item.setId(null);
+                    item.setList(entity);
+                    // Items keep the order of the guest list (sparse sort keys).
+                    item.setPosition((items.size() + 1) * positionStep);
+                    items.add(item);
+                    if (item.isPurchased()) {
+                        purchased++;
+                    }
+                }
+            }
+            entity.setItems(items);
+            entity.setItemsCount(items.size());
+            entity.setPurchasedCount(purchased);
+            entityManager.persist(entity);
+
+            // Send the pending batches and release the imported entities from memory.
+            if (++imported % importFlushSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
             }
         }
-        // Debug log (useful during development).
-        System.out.println("List " + guestList + " was imported form web browser to database");
+        // The owner can access the imported lists now.
+        listAccessService.invalidate(user.getId());
+
+        log.debug("{} lists were imported from a web browser", imported);
         return ResponseEntity.ok().build();
     }
 
     /**
-     * Returns all shopping lists accessible for the current user.
+     * Returns one page of summaries of shopping lists accessible for the current user.
      *
      * <p>
-     * The repository method can return lists that the user owns and/or lists shared with the user,
-     * depending on the query implementation.
+     * Lists owned by the user and lists shared with the user are loaded
+     * together with their item totals by a single aggregate query.
+     * The query is bounded by the page size and continues after the list ID
+     * encoded in the cursor, so both memory use and query time stay constant per request.
      * </p>
      *
-     * @return list of accessible lists
+     * @param after cursor of the page to load (null for the first page)
+     * @param size requested page size (null for the default size)
+     * @return page of accessible lists
      */
     @Override
-    @Transactional
-    public List<ListDTO> getAllByOwner() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ListSummaryDTO> getAllByOwner(String after, Integer size) {
+        UserEntity user = currentUser();
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+
+        // Load one more row than requested to find out whether another page exists.
+        long afterId = decodeCursor(after);
+        List<ListSummaryView> summaries = "exists".equalsIgnoreCase(queryStrategy)
+                ? listRepository.findUserAccessibleListSummaries(user.getId(), afterId, Limit.of(pageSize + 1))
+                : listRepository.findUserAccessibleListSummariesUnion(user.getId(), afterId, pageSize + 1);
+        List<ListSummaryDTO> rows = summaries.stream()
+                .map(listMapper::toSummaryDTO)
+                .toList();
 
-        // Require authentication.
-        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getPrincipal())) {
-            throw new RuntimeException("Uživatel není přihlášen");
+        if (rows.size() <= pageSize) {
+            return new CursorPageDTO<>(rows, null);
         }
-
-        UserEntity user = (UserEntity) auth.getPrincipal();
-
-        // Load lists accessible for user and enrich DTO with items count.
-        return listRepository.findAllUserAccessibleLists(user.getId()).stream()
-                .map(entity -> {
-                    ListDTO listDTO = listMapper.toDTO(entity);
-                    // Count items for each list (used for UI display).
-                    listDTO.setItemsCount(itemsRepository.countByListId(entity.getId()));
-                    // Debug log (useful during development).
-                    System.out.println("List by user " + user.getEmail() + ": " + listDTO.getName() + ", Number of items in list: " + listDTO.getItemsCount());
-                    return listDTO;
-                })
-                .toList();
+        List<ListSummaryDTO> page = rows.subList(0, pageSize);
+        return new CursorPageDTO<>(page, encodeCursor(page.get(pageSize - 1).getId()));
     }
 
     /**
      * Updates an existing list.
      *
      * <p>
-     * This method loads the list, updates its name and saves changes.
+     * Only the owner may rename the list. This method loads the list,
+     * updates its name and saves changes.
      * </p>
      *
      * @param listDTO updated list data
      * @return updated list
      */
     @Override
+    @Transactional
     public ListDTO updateList(ListDTO listDTO) {
+        listAccessService.checkOwner(listDTO.getId(), currentUser());
         ListEntity existing = list(listDTO.getId());
 
         // Update list fields.
@@ -263,18 +370,44 @@ public class ListServiceImpl implements ListService {
 
         // Persist changes.
         ListEntity updated = listRepository.save(existing);
+        Long version = listRepository.bumpChangeVersion(updated.getId());
+
+        // Notify subscribers of the list (delivered after commit).
+        eventPublisher.publishEvent(ListChangeEventDTO.list(updated.getId(), version, ListChangeType.LIST_UPDATED));
         return listMapper.toDTO(updated);
     }
 
     /**
      * Deletes a list by its ID.
      *
+     * <p>
+     * Only the owner may delete the list. The owner and all users the list
+     * was shared with lose access to it.
+     * </p>
+     *
      * @param id list ID
      */
     @Override
+    @Transactional
     public void removeList(long id) {
+        UserEntity user = currentUser();
+        listAccessService.checkOwner(id, user);
+
         ListEntity existing = list(id);
+        List<Long> sharedUserIds = sharedListRepository.findByListId(id).stream()
+                .map(shared -> shared.getUser().getId())
+                .toList();
+        // Image files of the items are kept in the owner's directory; removed after commit unless shared.
+        List<String> storedNames = imageRepository.findStoredNamesByListId(id);
         listRepository.delete(existing);
+        imageMetadataService.invalidateList(id);
+        fileCleanupService.deleteAfterCommit(user.getId(), storedNames);
+
+        listAccessService.invalidate(user.getId());
+        sharedUserIds.forEach(listAccessService::invalidate);
+
+        // Notify subscribers of the list (delivered after commit); their streams are closed.
+        eventPublisher.publishEvent(ListChangeEventDTO.list(id, existing.getChangeVersion() + 1, ListChangeType.LIST_DELETED));
 
         // Debug log (useful during development).
         System.out.println("List with ID number" + existing.getId() + " and name " + existing.getName() + " was removed");
@@ -290,4 +423,54 @@ public class ListServiceImpl implements ListService {
         return listRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("List " + id + " nenalezen"));
     }
+
+    /**
+     * Returns the currently logged-in user.
+     *
+     * <p>
+     * The method reads the authentication from {@link SecurityContextHolder}.
+     * </p>
+     *
+     * @return authenticated user
+     * @throws UserNotLoggedException if the request is not authenticated
+     */
+    private UserEntity currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+
+        // Basic authentication check (prevent anonymous access).
+        if (auth == null || !auth.isAuthenticated() || !(auth.getPrincipal() instanceof UserEntity user)) {
+            throw new UserNotLoggedException("Uživatel není přihlášen");
+        }
+        // Principal is expected to be UserEntity in this application.
+        return user;
+    }
+
+    /**
+     * Encodes the ID of the last returned list into an opaque cursor.
+     *
+     * @param lastId ID of the last list of the page
+     * @return URL-safe cursor string
+     */
+    private static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(lastId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encodeCursor(Long)}.
+     *
+     * @param cursor cursor sent by the client (may be null or empty)
+     * @return list ID after which the page starts (0 for the first page)
+     * @throws ResponseStatusException with status 400 if the cursor is malformed
+     */
+    private static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Neplatný kurzor stránkování");
+        }
+    }
 }
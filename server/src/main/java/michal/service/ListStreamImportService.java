@@ -0,0 +1,33 @@
+package michal.service;
+
+import michal.dto.ImportEventDTO;
+import michal.entity.UserEntity;
+
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Service for importing large amounts of lists from a newline-delimited JSON stream.
+ *
+ * <p>
+ * Every line of the input contains one list in the same format as {@code POST /api/list/import}
+ * (a {@code ListDTO} with its items). The input is read incrementally and written in bounded
+ * chunks, so memory use does not depend on the size of the payload.
+ * </p>
+ */
+public interface ListStreamImportService {
+
+    /**
+     * Imports all lists from the stream and assigns them to the given user.
+     *
+     * <p>
+     * Each chunk is committed in its own transaction. Lines that cannot be parsed or validated
+     * are reported as errors and skipped; they do not stop the import.
+     * </p>
+     *
+     * @param input  NDJSON input (one list per line)
+     * @param user   owner of the imported lists
+     * @param events receives progress, error and done events in input order
+     */
+    void importLists(InputStream input, UserEntity user, Consumer<ImportEventDTO> events);
+}
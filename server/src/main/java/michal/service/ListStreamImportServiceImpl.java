@@ -0,0 +1,294 @@
+package michal.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import michal.dto.ImportEventDTO;
+import michal.dto.ItemsDTO;
+import michal.dto.ListDTO;
+import michal.entity.UserEntity;
+import michal.entity.enumy.ValidationErrorCode;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Consumer;
+
+/**
+ * {@link ListStreamImportService} implementation backed by PostgreSQL {@code COPY}.
+ *
+ * <p>
+ * Input lines are parsed one by one and appended as CSV rows to an in-memory chunk.
+ * When the chunk reaches {@code app.import.chunk-lists} lists or {@code app.import.chunk-items} items,
+ * it is written in its own transaction: the rows are copied into temporary staging tables,
+ * IDs are taken from the entity sequences in pooled blocks (compatible with the Hibernate
+ * pooled optimizer) and two {@code INSERT ... SELECT} statements move the rows into
+ * {@code lists} and {@code items} with their item counters already set.
+ * </p>
+ */
+@Service
+public class ListStreamImportServiceImpl implements ListStreamImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ListStreamImportServiceImpl.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ListAccessService listAccessService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /** Maximum number of lists written in one chunk (one transaction). */
+    @Value("${app.import.chunk-lists:500}")
+    private int chunkLists;
+
+    /** Maximum number of items written in one chunk (one transaction). */
+    @Value("${app.import.chunk-items:20000}")
+    private int chunkItems;
+
+    /** Gap between the sort keys of two neighbouring items. */
+    @Value("${app.items.position-step:1024}")
+    private long positionStep;
+
+    /**
+     * Reads the NDJSON input line by line and writes it in bounded chunks.
+     *
+     * @param input  NDJSON input (one list per line)
+     * @param user   owner of the imported lists
+     * @param events receives progress, error and done events in input order
+     */
+    @Override
+    public void importLists(InputStream input, UserEntity user, Consumer<ImportEventDTO> events) {
+        ObjectReader reader = objectMapper.readerFor(ListDTO.class);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        Chunk chunk = new Chunk();
+        long lineNr = 0;
+        long importedLists = 0;
+        long importedItems = 0;
+
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNr++;
+                if (line.isBlank()) continue;
+
+                // Parse and validate the line; invalid lines are reported and skipped.
+                ListDTO list;
+                try {
+                    list = reader.readValue(line);
+                } catch (JsonProcessingException e) {
+                    events.accept(ImportEventDTO.error(lineNr, "INVALID_JSON", "Neplatný JSON: " + e.getOriginalMessage()));
+                    continue;
+                }
+                if (list == null || list.getName() == null || list.getName().isBlank()) {
+                    events.accept(ImportEventDTO.error(lineNr, ValidationErrorCode.LIST_NAME_EMPTY.name(),
+                            ValidationErrorCode.LIST_NAME_EMPTY.getMessage()));
+                    continue;
+                }
+
+                chunk.add(lineNr, list);
+                if (chunk.lists >= chunkLists || chunk.items >= chunkItems) {
+                    if (write(transaction, chunk, user, events)) {
+                        importedLists += chunk.lists;
+                        importedItems += chunk.items;
+                    }
+                    events.accept(ImportEventDTO.progress(lineNr, importedLists, importedItems));
+                    chunk = new Chunk();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("IMPORT_READ_FAILED", e);
+        }
+
+        // Write the rest of the input.
+        if (chunk.lists > 0 && write(transaction, chunk, user, events)) {
+            importedLists += chunk.lists;
+            importedItems += chunk.items;
+        }
+        events.accept(ImportEventDTO.done(lineNr, importedLists, importedItems));
+
+        log.debug("{} lists with {} items were imported from a stream", importedLists, importedItems);
+    }
+
+    /**
+     * Writes one chunk in its own transaction.
+     *
+     * @return true if the chunk was committed, false if it failed (an error event is sent instead)
+     */
+    private boolean write(TransactionTemplate transaction, Chunk chunk, UserEntity user, Consumer<ImportEventDTO> events) {
+        try {
+            transaction.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).doWork(connection -> copyChunk(connection, chunk, user.getId()));
+                // The owner can access the imported lists after commit.
+                listAccessService.invalidate(user.getId());
+            });
+            return true;
+        } catch (RuntimeException e) {
+            // The cause (SQL, table names) stays in the server log; the client gets a stable code.
+            log.error("Lines {}-{} of a stream import of user {} were not saved",
+                    chunk.firstLine, chunk.lastLine, user.getId(), e);
+            events.accept(ImportEventDTO.error(chunk.firstLine, chunk.lastLine, "IMPORT_CHUNK_FAILED",
+                    "Řádky " + chunk.firstLine + "-" + chunk.lastLine + " nebyly uloženy."));
+            return false;
+        }
+    }
+
+    /**
+     * Copies the chunk into temporary staging tables and moves it into {@code lists} and {@code items}.
+     */
+    private void copyChunk(Connection connection, Chunk chunk, Long ownerId) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                create temp table import_lists (
+                    seq int primary key, name text, items_count bigint, purchased_count bigint, id bigint
+                ) on commit drop""");
+            statement.execute("""
+                create temp table import_items (
+                    seq int, list_seq int, name text, count real, purchased boolean, id bigint
+                ) on commit drop""");
+        }
+
+        CopyManager copy = connection.unwrap(PGConnection.class).getCopyAPI();
+        try {
+            copy.copyIn("copy import_lists (seq, name, items_count, purchased_count) from stdin with (format csv)",
+                    new StringReader(chunk.listRows.toString()));
+            copy.copyIn("copy import_items (seq, list_seq, name, count, purchased) from stdin with (format csv)",
+                    new StringReader(chunk.itemRows.toString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("IMPORT_COPY_FAILED", e);
+        }
+
+        assignIds(connection, "import_lists", "lists_seq", chunk.lists);
+        assignIds(connection, "import_items", "items_seq", chunk.items);
+
+        try (PreparedStatement insertLists = connection.prepareStatement("""
+                insert into lists (id, name, owner_id, items_count, purchased_count, change_version)
+                select id, name, ?, items_count, purchased_count, 0
+                from import_lists""")) {
+            insertLists.setLong(1, ownerId);
+            insertLists.executeUpdate();
+        }
+        // Items keep the order of the file (sparse sort keys per list).
+        try (PreparedStatement insertItems = connection.prepareStatement("""
+                insert into items (id, name, count, purchased, list_id, position)
+                select i.id, i.name, i.count, i.purchased, l.id,
+                       row_number() over (partition by i.list_seq order by i.seq) * ?
+                from import_items i
+                join import_lists l on l.seq = i.list_seq""")) {
+            insertItems.setLong(1, positionStep);
+            insertItems.executeUpdate();
+        }
+    }
+
+    /**
+     * Assigns IDs from a sequence to the rows of a staging table.
+     *
+     * <p>
+     * The entities use a pooled optimizer: every {@code nextval} reserves the block
+     * {@code (value - increment, value]} for its caller. The import reserves blocks the same way,
+     * so its IDs never collide with IDs handed out by Hibernate, whatever the increment of the sequence is.
+     * One extra block is requested because the very first value of a new sequence covers only one ID.
+     * </p>
+     */
+    private void assignIds(Connection connection, String table, String sequence, int rows) throws SQLException {
+        if (rows == 0) return;
+
+        long increment;
+        try (PreparedStatement query = connection.prepareStatement(
+                "select increment_by from pg_sequences where schemaname = current_schema() and sequencename = ?")) {
+            query.setString(1, sequence);
+            try (ResultSet result = query.executeQuery()) {
+                result.next();
+                increment = result.getLong(1);
+            }
+        }
+
+        long blocks = (rows + increment - 1) / increment + 1;
+        try (PreparedStatement update = connection.prepareStatement("""
+                update %s s
+                set id = ids.id
+                from (
+                    select row_number() over (order by x.id) as rn, x.id
+                    from (
+                        select generate_series(b.hi - ? + 1, b.hi) as id
+                        from (select nextval('%s') as hi from generate_series(1, ?)) b
+                    ) x
+                    where x.id > 0
+                ) ids
+                where ids.rn = s.seq""".formatted(table, sequence))) {
+            update.setLong(1, increment);
+            update.setLong(2, blocks);
+            update.executeUpdate();
+        }
+    }
+
+    /**
+     * Lists and items of one chunk, already encoded as CSV rows for {@code COPY}.
+     */
+    private static final class Chunk {
+        private final StringBuilder listRows = new StringBuilder();
+        private final StringBuilder itemRows = new StringBuilder();
+        private int lists;
+        private int items;
+        private long firstLine;
+        private long lastLine;
+
+        /** Appends one list and its items to the chunk. */
+        private void add(long lineNr, ListDTO list) {
+            if (lists == 0) firstLine = lineNr;
+            lastLine = lineNr;
+            lists++;
+
+            long itemsCount = 0;
+            long purchasedCount = 0;
+            if (list.getItems() != null) {
+                for (ItemsDTO item : list.getItems()) {
+                    if (item == null) continue;
+                    items++;
+                    itemsCount++;
+                    if (item.isPurchased()) purchasedCount++;
+                    itemRows.append(items).append(',').append(lists).append(',');
+                    appendText(itemRows, item.getName());
+                    itemRows.append(',').append(item.getCount()).append(',').append(item.isPurchased()).append('\n');
+                }
+            }
+
+            listRows.append(lists).append(',');
+            appendText(listRows, list.getName());
+            listRows.append(',').append(itemsCount).append(',').append(purchasedCount).append('\n');
+        }
+
+        /** Appends a quoted CSV value ({@code null} stays an unquoted empty value, which COPY reads as NULL). */
+        private static void appendText(StringBuilder row, String value) {
+            if (value == null) return;
+            row.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+    }
+}
@@ -50,6 +50,76 @@ public interface StorageService {
      */
     void save(Long userId, String storedName, InputStream inputStream);
 
+    /**
+     * Stores a file under the SHA-256 hash of its content (content-addressed storage), in two steps.
+     *
+     * <p>
+     * The content is hashed while it is streamed into the user directory. The final name is
+     * known only after the last byte, so the content is written under a temporary name of the
+     * same directory; {@link StagedFile#publish()} then renames it (no second copy of the data).
+     * Until then no reader can see a partially written file under the final name, and an
+     * identical file that is already stored is never overwritten.
+     * </p>
+     *
+     * <p>
+     * Streaming needs no transaction: the caller locks the final name and publishes the file
+     * in a short transaction afterwards, or discards it.
+     * </p>
+     *
+     * @param userId ID of the user who owns the file
+     * @param inputStream input stream containing file data
+     * @param extension file extension including the dot (e.g. ".png")
+     * @return staged file with its final stored name ({@code <sha256><extension>})
+     */
+    StagedFile stageContentAddressed(Long userId, InputStream inputStream, String extension);
+
+    /**
+     * Writes a file under a temporary name, to be published later under the given name.
+     *
+     * <p>
+     * Used for files whose name may already be served (e.g. thumbnails of a shared original):
+     * {@link StagedFile#publish()} renames the complete file into place, so a reader never sees
+     * a partially written file, and a file that already exists is kept instead of being rewritten.
+     * </p>
+     *
+     * @param userId ID of the user who owns the file
+     * @param storedName final internal stored file name
+     * @param inputStream input stream containing file data
+     * @return staged file
+     */
+    StagedFile stage(Long userId, String storedName, InputStream inputStream);
+
+    /**
+     * Content written by {@link #stageContentAddressed} or {@link #stage} that is not visible under its final name yet.
+     */
+    interface StagedFile {
+
+        /**
+         * @return final internal stored file name
+         */
+        String getStoredName();
+
+        /**
+         * Moves the file to its final name; when an identical file is already stored, it is kept
+         * and the staged one is discarded.
+         */
+        void publish();
+
+        /**
+         * Deletes the staged file if it was not published (idempotent).
+         */
+        void discard();
+    }
+
+    /**
+     * Tells whether a stored file exists.
+     *
+     * @param userId ID of the user who owns the file
+     * @param storedName internal stored file name
+     * @return true if the file exists
+     */
+    boolean exists(Long userId, String storedName);
+
     /**
      * Deletes a stored file from storage.
      *
@@ -11,6 +11,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
 
 /**
  * File system-based implementation of {@link StorageService}.
@@ -33,7 +38,10 @@ public class StorageServiceImpl implements StorageService{
      *
      * <p>
      * The file is stored under a directory named by the user ID.
-     * If the directory does not exist, it is created.
+     * If the directory does not exist, it is created. The content is written straight
+     * to the target file: the name is new and not referenced by anything until the caller
+     * commits it, so nobody reads the file while it is written. A partially written file
+     * is deleted.
      * </p>
      *
      * @param userId ID of the user who owns the file
@@ -43,21 +51,130 @@ public class StorageServiceImpl implements StorageService{
     @Override
     @Transactional
     public void save(Long userId, String storedName, InputStream inputStream){
+        Path targetFile = null;
         try{
             // Create user-specific directory if it does not exist.
             Path userDir = Paths.get(ROOT_DIR, userId.toString());
             Files.createDirectories(userDir);
 
             // Resolve target file path and copy file content.
-            Path targetFile = userDir.resolve(storedName);
+            targetFile = userDir.resolve(storedName);
             Files.copy(inputStream, targetFile, StandardCopyOption.REPLACE_EXISTING);
 
             // Debug logs to help during development.
             System.out.println("WORKDIR = " + Paths.get("").toAbsolutePath());
             System.out.println("IMAGE SAVED TO: " + targetFile.toAbsolutePath());
-        }catch (IOException e){
+        }catch (IOException | RuntimeException e){
+            // Also when the stream itself rejects the content (e.g. too large).
+            deleteQuietly(targetFile);
             // Wrap checked exception into runtime exception.
-            throw new RuntimeException("FAILED_TO_STORE_FILE", e);
+            throw e instanceof RuntimeException runtime ? runtime : new RuntimeException("FAILED_TO_STORE_FILE", e);
+        }
+    }
+
+    /**
+     * Streams content into a temporary file of the user directory and hashes it on the way.
+     *
+     * <p>
+     * The temporary file is the only write of the content: it is renamed to its final
+     * name by {@link StagedFile#publish()} (same directory, so the rename is atomic).
+     * The final name depends on the whole content, so it cannot be written there directly.
+     * </p>
+     *
+     * @param userId ID of the user who owns the file
+     * @param inputStream input stream containing the file data
+     * @param extension file extension including the dot
+     * @return staged file with its final stored name ({@code <sha256><extension>})
+     */
+    @Override
+    public StagedFile stageContentAddressed(Long userId, InputStream inputStream, String extension) {
+        Path tempFile = null;
+        try {
+            Path userDir = Paths.get(ROOT_DIR, userId.toString());
+            Files.createDirectories(userDir);
+
+            // Hash while streaming, so the content is read and written only once.
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            tempFile = userDir.resolve(".upload-" + UUID.randomUUID() + ".tmp");
+            Files.copy(new DigestInputStream(inputStream, digest), tempFile);
+            String storedName = HexFormat.of().formatHex(digest.digest()) + extension;
+            return new FileSystemStagedFile(tempFile, userDir.resolve(storedName));
+        } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+            // Also when the stream itself rejects the content (e.g. too large).
+            deleteQuietly(tempFile);
+            throw e instanceof RuntimeException runtime ? runtime : new RuntimeException("FAILED_TO_STORE_FILE", e);
+        }
+    }
+
+    /**
+     * Writes content into a temporary file of the user directory, published later under the given name.
+     *
+     * @param userId ID of the user who owns the file
+     * @param storedName final internal stored file name
+     * @param inputStream input stream containing the file data
+     * @return staged file
+     */
+    @Override
+    public StagedFile stage(Long userId, String storedName, InputStream inputStream) {
+        Path tempFile = null;
+        try {
+            Path userDir = Paths.get(ROOT_DIR, userId.toString());
+            Files.createDirectories(userDir);
+
+            tempFile = userDir.resolve(".upload-" + UUID.randomUUID() + ".tmp");
+            Files.copy(inputStream, tempFile);
+            return new FileSystemStagedFile(tempFile, userDir.resolve(storedName));
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(tempFile);
+            throw e instanceof RuntimeException runtime ? runtime : new RuntimeException("FAILED_TO_STORE_FILE", e);
+        }
+    }
+
+    /** Deletes a file, ignoring errors (an orphan file is harmless). */
+    private static void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Removed by a later cleanup at the latest.
+        }
+    }
+
+    /**
+     * Staged content in a temporary file next to its final location.
+     */
+    private static final class FileSystemStagedFile implements StagedFile {
+        private final Path tempFile;
+        private final Path targetFile;
+
+        private FileSystemStagedFile(Path tempFile, Path targetFile) {
+            this.tempFile = tempFile;
+            this.targetFile = targetFile;
+        }
+
+        @Override
+        public String getStoredName() {
+            return targetFile.getFileName().toString();
+        }
+
+        @Override
+        public void publish() {
+            try {
+                if (Files.exists(targetFile)) {
+                    // The file is already stored (and may be served): it is never rewritten.
+                    Files.delete(tempFile);
+                } else {
+                    Files.move(tempFile, targetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                discard();
+                throw new RuntimeException("FAILED_TO_STORE_FILE", e);
+            }
+        }
+
+        @Override
+        public void discard() {
+            deleteQuietly(tempFile);
         }
     }
 
@@ -95,6 +212,18 @@ public class StorageServiceImpl implements StorageService{
         }
     }
 
+    /**
+     * Tells whether a stored file exists.
+     *
+     * @param userId ID of the user who owns the file
+     * @param storedName internal filename used for storage
+     * @return true if the file exists
+     */
+    @Override
+    public boolean exists(Long userId, String storedName) {
+        return Files.exists(Paths.get(ROOT_DIR, userId.toString(), storedName));
+    }
+
     /**
      * Deletes a stored file from the storage.
      *
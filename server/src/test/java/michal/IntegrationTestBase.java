@@ -0,0 +1,138 @@
+package michal;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManagerFactory;
+import michal.entity.UserEntity;
+import michal.entity.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.io.IOException;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Base of tests that run the whole application.
+ *
+ * <p>
+ * The application runs against an embedded PostgreSQL (several repositories use native
+ * PostgreSQL queries) with Hibernate statistics enabled, so a test can also assert how many
+ * statements a request prepares and how many JDBC batches it executes.
+ * </p>
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public abstract class IntegrationTestBase {
+
+    private static final EmbeddedPostgres POSTGRES;
+
+    static {
+        try {
+            POSTGRES = EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Embedded PostgreSQL could not be started", e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+    }
+
+    @Autowired
+    protected MockMvc mvc;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Creates a user (accounts are not shared between tests, so every test passes its own email).
+     */
+    protected UserEntity createUser(String email) {
+        UserEntity user = new UserEntity();
+        user.setEmail(email);
+        user.setPassword("password");
+        return userRepository.save(user);
+    }
+
+    /**
+     * Creates a list through the API and returns its ID.
+     */
+    protected long createList(UserEntity owner, String name) throws Exception {
+        String body = mvc.perform(post("/api/list").with(user(owner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Long.parseLong(body.replaceAll(".*\"_id\":(\\d+).*", "$1"));
+    }
+
+    /**
+     * Creates an item through the API and returns its ID.
+     */
+    protected long createItem(UserEntity owner, long listId, String name, boolean purchased) throws Exception {
+        String body = mvc.perform(post("/api/list/" + listId + "/items").with(user(owner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\",\"count\":1,\"purchased\":" + purchased + "}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Long.parseLong(body.replaceAll(".*\"id\":(\\d+).*", "$1"));
+    }
+
+    /**
+     * Uploads a PNG image of an item through the API and returns the ID of the image.
+     */
+    protected long uploadImage(UserEntity owner, long listId, long itemId, byte[] png) throws Exception {
+        String body = mvc.perform(put("/api/list/" + listId + "/items/" + itemId + "/image").with(user(owner))
+                        .contentType(MediaType.IMAGE_PNG)
+                        .content(png))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Long.parseLong(body.replaceAll(".*\"imageId\":(\\d+).*", "$1"));
+    }
+
+    /**
+     * Performs a request and returns the number of SQL statements it prepared.
+     *
+     * <p>
+     * The request is sent twice and only the second one is counted, so the result does not
+     * depend on caches (e.g. list access) that the first request of a user fills.
+     * </p>
+     */
+    protected long countStatements(RequestBuilder request) throws Exception {
+        mvc.perform(request).andExpect(status().isOk());
+        Statistics statistics = statistics();
+        statistics.clear();
+        mvc.perform(request).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * @return Hibernate statistics of the application
+     */
+    protected Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
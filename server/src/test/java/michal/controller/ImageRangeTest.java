@@ -0,0 +1,117 @@
+package michal.controller;
+
+import michal.IntegrationTestBase;
+import michal.entity.UserEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Range requests of an image ({@code GET /api/images/{id}}) are answered with the requested part (206),
+ * with the whole file when {@code If-Range} names another version (200), and with 416 when the range
+ * lies outside the file, both when Spring writes the file and when it is handed over to the connector (sendfile).
+ */
+class ImageRangeTest extends IntegrationTestBase {
+
+    // Request attribute of Tomcat's sendfile support (see ImageResponse).
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private UserEntity owner;
+    private byte[] png;
+    private String url;
+    private String etag;
+
+    @BeforeEach
+    void uploadImage() throws Exception {
+        owner = createUser("range-owner-" + System.nanoTime() + "@example.com");
+        long listId = createList(owner, "photos");
+        long itemId = createItem(owner, listId, "apples", false);
+        png = noisePng();
+        url = "/api/images/" + uploadImage(owner, listId, itemId, png);
+        etag = mvc.perform(get(url).with(user(owner)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    @Test
+    void rangeIsServedBySpring() throws Exception {
+        MockHttpServletResponse partial = mvc.perform(get(url).with(user(owner))
+                        .header(HttpHeaders.RANGE, "bytes=0-99")
+                        .header(HttpHeaders.IF_RANGE, etag))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-99/" + png.length))
+                .andReturn().getResponse();
+        assertArrayEquals(Arrays.copyOf(png, 100), partial.getContentAsByteArray());
+
+        // The client has another version: the range must not be applied to this one.
+        MockHttpServletResponse whole = mvc.perform(get(url).with(user(owner))
+                        .header(HttpHeaders.RANGE, "bytes=0-99")
+                        .header(HttpHeaders.IF_RANGE, "\"older\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andReturn().getResponse();
+        assertArrayEquals(png, whole.getContentAsByteArray());
+
+        mvc.perform(get(url).with(user(owner)).header(HttpHeaders.RANGE, "bytes=" + png.length + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+    }
+
+    @Test
+    void rangeIsHandedOverToSendfile() throws Exception {
+        mvc.perform(get(url).with(user(owner))
+                        .requestAttr(SENDFILE_SUPPORT, true)
+                        .header(HttpHeaders.RANGE, "bytes=100-199"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 100-199/" + png.length))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 100))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.start", 100L))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.end", 200L));
+
+        mvc.perform(get(url).with(user(owner))
+                        .requestAttr(SENDFILE_SUPPORT, true)
+                        .header(HttpHeaders.RANGE, "bytes=0-99")
+                        .header(HttpHeaders.IF_RANGE, "\"older\""))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, png.length))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.start", 0L));
+
+        mvc.perform(get(url).with(user(owner))
+                        .requestAttr(SENDFILE_SUPPORT, true)
+                        .header(HttpHeaders.RANGE, "bytes=" + png.length + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + png.length));
+    }
+
+    /**
+     * A PNG of random pixels, large enough to be handed over to sendfile.
+     */
+    private static byte[] noisePng() throws Exception {
+        BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        assertTrue(out.size() >= 48 * 1024);
+        return out.toByteArray();
+    }
+}
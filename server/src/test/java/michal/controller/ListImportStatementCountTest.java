@@ -0,0 +1,79 @@
+package michal.controller;
+
+import michal.IntegrationTestBase;
+import michal.entity.UserEntity;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The guest list import ({@code POST /api/list/import}) writes lists and items in JDBC batches
+ * instead of one statement per row.
+ *
+ * <p>
+ * The scenario is the one measured for the batched import: 50 lists with 200 items each.
+ * </p>
+ */
+class ListImportStatementCountTest extends IntegrationTestBase {
+
+    private static final int LISTS = 50;
+    private static final int ITEMS_PER_LIST = 200;
+
+    @Test
+    void importWritesRowsInBatches() throws Exception {
+        UserEntity owner = createUser("import-owner@example.com");
+        String body = guestLists();
+
+        // Warm-up import, so the measured one does not include first-use work (e.g. sequence blocks).
+        importLists(owner, body);
+        Statistics statistics = statistics();
+        statistics.clear();
+        importLists(owner, body);
+
+        // Mostly items_seq block allocations (10 000 / 50); one statement per row would be over 10 000.
+        assertEquals(211, statistics.getPrepareStatementCount());
+        // One flush per app.list.import-flush-size (10) lists.
+        assertEquals(LISTS / 10, statistics.getFlushCount());
+
+        long imported = jdbcTemplate.queryForObject(
+                "select count(*) from items i join lists l on l.id = i.list_id where l.owner_id = ?",
+                Long.class, owner.getId());
+        assertEquals(2L * LISTS * ITEMS_PER_LIST, imported);
+        long drift = jdbcTemplate.queryForObject(
+                "select count(*) from lists l where l.owner_id = ?"
+                        + " and l.items_count <> (select count(*) from items i where i.list_id = l.id)",
+                Long.class, owner.getId());
+        assertEquals(0, drift);
+    }
+
+    private void importLists(UserEntity owner, String body) throws Exception {
+        mvc.perform(post("/api/list/import").with(user(owner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().is2xxSuccessful());
+    }
+
+    private static String guestLists() {
+        StringBuilder body = new StringBuilder("[");
+        for (int l = 0; l < LISTS; l++) {
+            if (l > 0) {
+                body.append(',');
+            }
+            body.append("{\"name\":\"guest list ").append(l).append("\",\"items\":[");
+            for (int i = 0; i < ITEMS_PER_LIST; i++) {
+                if (i > 0) {
+                    body.append(',');
+                }
+                body.append("{\"name\":\"item ").append(i).append("\",\"count\":1,\"purchased\":")
+                        .append(i % 4 == 0).append('}');
+            }
+            body.append("]}");
+        }
+        return body.append(']').toString();
+    }
+}
@@ -0,0 +1,48 @@
+package michal.controller;
+
+import michal.IntegrationTestBase;
+import michal.entity.UserEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The list overview ({@code GET /api/list}) is read with one statement, however many lists and items exist.
+ */
+class ListSummaryStatementCountTest extends IntegrationTestBase {
+
+    @Test
+    void overviewUsesOneStatementRegardlessOfListCount() throws Exception {
+        UserEntity owner = createUser("summary-owner@example.com");
+        UserEntity friend = createUser("summary-friend@example.com");
+        createLists(owner, 3);
+        long shared = createList(friend, "shared");
+        createItem(friend, shared, "milk", false);
+        mvc.perform(post("/api/list/" + shared).with(user(friend))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + owner.getEmail() + "\"}"))
+                .andExpect(status().isOk());
+
+        // The overview contains the shared list as well.
+        long fewLists = countStatements(get("/api/list").with(user(owner)));
+
+        createLists(owner, 20);
+        long manyLists = countStatements(get("/api/list").with(user(owner)));
+
+        assertEquals(1, fewLists);
+        assertEquals(fewLists, manyLists);
+    }
+
+    private void createLists(UserEntity owner, int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            long listId = createList(owner, "list " + i);
+            createItem(owner, listId, "bread", false);
+            createItem(owner, listId, "butter", true);
+        }
+    }
+}
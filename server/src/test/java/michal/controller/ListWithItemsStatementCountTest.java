@@ -0,0 +1,45 @@
+package michal.controller;
+
+import michal.IntegrationTestBase;
+import michal.entity.UserEntity;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * A list is returned with its items and their images ({@code GET /api/list/{id}}) by a fixed
+ * number of statements, however many items and images it has.
+ */
+class ListWithItemsStatementCountTest extends IntegrationTestBase {
+
+    @Test
+    void listWithItemsUsesSameStatementsRegardlessOfItemCount() throws Exception {
+        UserEntity owner = createUser("items-owner@example.com");
+        long listId = createList(owner, "groceries");
+        addItemsWithImages(owner, listId, 0, 3);
+
+        long fewItems = countStatements(get("/api/list/" + listId).with(user(owner)));
+
+        addItemsWithImages(owner, listId, 3, 30);
+        long manyItems = countStatements(get("/api/list/" + listId).with(user(owner)));
+
+        // The change version (ETag check) and the list with its items and images.
+        assertEquals(2, fewItems);
+        assertEquals(fewItems, manyItems);
+    }
+
+    /**
+     * Adds items {@code from..to-1}; every other item gets an image record (the file itself is not needed).
+     */
+    private void addItemsWithImages(UserEntity owner, long listId, int from, int to) throws Exception {
+        for (int i = from; i < to; i++) {
+            long itemId = createItem(owner, listId, "item " + i, i % 3 == 0);
+            if (i % 2 == 0) {
+                jdbcTemplate.update("insert into image(id, stored_name, content_type, item_id)"
+                        + " values (nextval('images_seq'), ?, 'PNG', ?)", "image" + i + ".png", itemId);
+            }
+        }
+    }
+}
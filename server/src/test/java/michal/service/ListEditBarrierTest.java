@@ -0,0 +1,63 @@
+package michal.service;
+
+import michal.IntegrationTestBase;
+import michal.dto.ItemBatchOperationDTO;
+import michal.entity.UserEntity;
+import michal.entity.enumy.ItemBatchOperationType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A read of a list is a barrier for its queued edits: it never answers without edits that were accepted.
+ */
+// The scheduled write is far away, so only the barrier writes the queued edits.
+@TestPropertySource(properties = "app.items.edit.flush-millis=60000")
+class ListEditBarrierTest extends IntegrationTestBase {
+
+    @SpyBean
+    private ItemsService itemsService;
+
+    @Autowired
+    private ListEditService listEditService;
+
+    @Test
+    void readFailsWhileQueuedEditsCannotBeWritten() throws Exception {
+        UserEntity owner = createUser("barrier-owner@example.com");
+        long listId = createList(owner, "groceries");
+        long itemId = createItem(owner, listId, "milk", false);
+
+        doThrow(new RuntimeException("database unavailable")).doCallRealMethod()
+                .when(itemsService).batchUpdate(anyLong(), anyList(), any());
+        listEditService.submit(listId, List.of(
+                new ItemBatchOperationDTO(ItemBatchOperationType.UPDATE, itemId, null, null, 5f)), owner);
+
+        // The write fails: the read must not return the item without the accepted edit.
+        mvc.perform(get("/api/list/" + listId + "/items").with(user(owner)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.code").value("EDITS_PENDING"));
+        assertEquals(1f, jdbcTemplate.queryForObject("select count from items where id = ?", Float.class, itemId));
+
+        // The edit stayed queued and the next read writes it first.
+        mvc.perform(get("/api/list/" + listId + "/items").with(user(owner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].count").value(5.0));
+        doCallRealMethod().when(itemsService).batchUpdate(anyLong(), anyList(), any());
+    }
+}
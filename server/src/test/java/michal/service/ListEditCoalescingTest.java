@@ -0,0 +1,105 @@
+package michal.service;
+
+import michal.IntegrationTestBase;
+import michal.dto.ItemBatchOperationDTO;
+import michal.dto.ListEditRejectedEventDTO;
+import michal.entity.UserEntity;
+import michal.entity.enumy.ItemBatchOperationType;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Queued edits of a list are merged per item before they are written, and edits that can no longer
+ * be written are reported to their submitter instead of being dropped.
+ */
+// The scheduled write is far away, so only the read barrier writes the queued edits.
+@TestPropertySource(properties = "app.items.edit.flush-millis=60000")
+@RecordApplicationEvents
+class ListEditCoalescingTest extends IntegrationTestBase {
+
+    @SpyBean
+    private ItemsService itemsService;
+
+    @Autowired
+    private ListEditService listEditService;
+
+    @Autowired
+    private ListAccessService listAccessService;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void editsOfOneItemAreWrittenAsOneOperation() throws Exception {
+        UserEntity owner = createUser("coalesce-owner@example.com");
+        long listId = createList(owner, "groceries");
+        long milk = createItem(owner, listId, "milk", false);
+        long bread = createItem(owner, listId, "bread", false);
+
+        listEditService.submit(listId, List.of(
+                new ItemBatchOperationDTO(ItemBatchOperationType.UPDATE, milk, null, null, 2f),
+                new ItemBatchOperationDTO(ItemBatchOperationType.SET_PURCHASED, milk, true, null, null),
+                new ItemBatchOperationDTO(ItemBatchOperationType.UPDATE, bread, null, "rye bread", null)), owner);
+        listEditService.submit(listId, List.of(
+                new ItemBatchOperationDTO(ItemBatchOperationType.SET_PURCHASED, milk, false, null, null),
+                new ItemBatchOperationDTO(ItemBatchOperationType.DELETE, bread, null, null, null)), owner);
+
+        mvc.perform(get("/api/list/" + listId + "/items").with(user(owner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].count").value(2.0))
+                .andExpect(jsonPath("$[0].purchased").value(false));
+
+        // Five edits of two items are written by one call with one operation per item.
+        ArgumentCaptor<List<ItemBatchOperationDTO>> written = ArgumentCaptor.forClass(List.class);
+        verify(itemsService, times(1)).batchUpdate(eq(listId), written.capture(), any());
+        assertEquals(List.of(
+                new ItemBatchOperationDTO(ItemBatchOperationType.UPDATE, milk, false, null, 2f),
+                new ItemBatchOperationDTO(ItemBatchOperationType.DELETE, bread, null, null, null)), written.getValue());
+    }
+
+    @Test
+    void editsOfUserWithoutAccessAreRejected() throws Exception {
+        UserEntity owner = createUser("reject-owner@example.com");
+        UserEntity friend = createUser("reject-friend@example.com");
+        long listId = createList(owner, "groceries");
+        long milk = createItem(owner, listId, "milk", false);
+        mvc.perform(post("/api/list/" + listId).with(user(owner))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + friend.getEmail() + "\"}"))
+                .andExpect(status().isOk());
+
+        listEditService.submit(listId, List.of(
+                new ItemBatchOperationDTO(ItemBatchOperationType.SET_PURCHASED, milk, true, null, null)), friend);
+        // The list stops being shared before the queued edit is written.
+        jdbcTemplate.update("delete from shared_lists where list_id = ?", listId);
+        listAccessService.invalidate(friend.getId());
+
+        mvc.perform(get("/api/list/" + listId + "/items").with(user(owner)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].purchased").value(false));
+
+        List<ListEditRejectedEventDTO> rejected = events.stream(ListEditRejectedEventDTO.class).toList();
+        assertEquals(List.of(new ListEditRejectedEventDTO(listId, friend.getId(), "FORBIDDEN", List.of(milk))), rejected);
+    }
+}
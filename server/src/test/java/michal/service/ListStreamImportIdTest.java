@@ -0,0 +1,77 @@
+package michal.service;
+
+import michal.IntegrationTestBase;
+import michal.entity.UserEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The stream import takes IDs from the entity sequences in blocks that do not collide with the blocks
+ * Hibernate's pooled optimizer has already reserved, so lists and items created through JPA before
+ * and after the import keep getting free IDs.
+ */
+// Small chunks, so the import takes several blocks of each sequence.
+@TestPropertySource(properties = {"app.import.chunk-lists=3", "app.import.chunk-items=20"})
+class ListStreamImportIdTest extends IntegrationTestBase {
+
+    @Test
+    void importedIdsDoNotCollideWithPooledIds() throws Exception {
+        UserEntity owner = createUser("stream-ids-owner@example.com");
+        // Hibernate reserves a block of each sequence before the import.
+        long before = createList(owner, "before");
+        createItem(owner, before, "milk", false);
+
+        StringBuilder body = new StringBuilder();
+        for (int l = 0; l < 10; l++) {
+            body.append("{\"name\":\"imported ").append(l).append("\",\"items\":[");
+            for (int i = 0; i < 8; i++) {
+                if (i > 0) {
+                    body.append(',');
+                }
+                body.append("{\"name\":\"item ").append(i).append("\",\"count\":1,\"purchased\":").append(i % 2 == 0).append('}');
+            }
+            body.append("]}\n");
+        }
+        MvcResult started = mvc.perform(post("/api/list/import/stream").with(user(owner))
+                        .contentType("application/x-ndjson")
+                        .content(body.toString()))
+                .andReturn();
+        String events = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(events.contains("\"type\":\"done\""), events);
+        assertFalse(events.contains("\"type\":\"error\""), events);
+
+        // The rest of the reserved blocks is used after the import.
+        for (int l = 0; l < 5; l++) {
+            long after = createList(owner, "after " + l);
+            for (int i = 0; i < 5; i++) {
+                createItem(owner, after, "item " + i, false);
+            }
+        }
+
+        List<Long> lists = jdbcTemplate.queryForList("select id from lists where owner_id = ?", Long.class, owner.getId());
+        assertEquals(16, lists.size());
+        long items = jdbcTemplate.queryForObject(
+                "select count(*) from items i join lists l on l.id = i.list_id where l.owner_id = ?",
+                Long.class, owner.getId());
+        assertEquals(1 + 10 * 8 + 5 * 5, items);
+        long drift = jdbcTemplate.queryForObject(
+                "select count(*) from lists l where l.owner_id = ?"
+                        + " and (l.items_count <> (select count(*) from items i where i.list_id = l.id)"
+                        + " or l.purchased_count <> (select count(*) from items i where i.list_id = l.id and i.purchased))",
+                Long.class, owner.getId());
+        assertEquals(0, drift);
+    }
+}
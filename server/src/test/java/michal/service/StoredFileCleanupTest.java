@@ -0,0 +1,75 @@
+package michal.service;
+
+import michal.IntegrationTestBase;
+import michal.entity.UserEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A stored file shared by several images (the same content uploaded twice) is deleted
+ * only when the last image referencing it is deleted.
+ */
+// The background pass is far away, so the test runs the passes itself.
+@TestPropertySource(properties = "app.storage.cleanup-delay-millis=60000")
+class StoredFileCleanupTest extends IntegrationTestBase {
+
+    @Autowired
+    private FileCleanupServiceImpl fileCleanupService;
+
+    @Test
+    void sharedFileIsKeptUntilLastImageIsDeleted() throws Exception {
+        UserEntity owner = createUser("cleanup-owner@example.com");
+        long listId = createList(owner, "groceries");
+        long milk = createItem(owner, listId, "milk", false);
+        long butter = createItem(owner, listId, "butter", false);
+        byte[] png = png();
+
+        long first = uploadImage(owner, listId, milk, png);
+        long second = uploadImage(owner, listId, butter, png);
+        String storedName = storedName(first);
+        assertEquals(storedName, storedName(second));
+        Path file = Paths.get("uploads", owner.getId().toString(), storedName);
+        assertTrue(Files.exists(file));
+
+        deleteImage(owner, listId, milk);
+        fileCleanupService.deleteQueued();
+        // The other image still references the file.
+        assertTrue(Files.exists(file));
+
+        deleteImage(owner, listId, butter);
+        fileCleanupService.deleteQueued();
+        assertFalse(Files.exists(file));
+    }
+
+    private void deleteImage(UserEntity owner, long listId, long itemId) throws Exception {
+        mvc.perform(delete("/api/list/" + listId + "/items/" + itemId + "/image").with(user(owner)))
+                .andExpect(status().is2xxSuccessful());
+    }
+
+    private String storedName(long imageId) {
+        return jdbcTemplate.queryForObject("select stored_name from image where id = ?", String.class, imageId);
+    }
+
+    private static byte[] png() throws Exception {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(3, 5, 0x336699);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}